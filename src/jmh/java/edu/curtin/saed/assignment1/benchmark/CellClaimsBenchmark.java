@@ -0,0 +1,83 @@
+package edu.curtin.saed.assignment1.benchmark;
+
+import edu.curtin.saed.assignment1.gamelogic.CellClaims;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures how many moves per second the claim table resolves as the number of threads grows: each benchmark thread
+ * moves robots of its own, claiming a neighbouring cell for each move and releasing the cell it left, the way robot
+ * movers claim cells in parallel. Run it with increasing thread counts to see the scaling, e.g.
+ * 'java -jar build/libs/*-jmh.jar CellClaimsBenchmark -t 4'; with throughput per thread staying level, the total
+ * rises with the threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CellClaimsBenchmark {
+
+    private static final int ARENA_SIZE = 1000;
+    private static final int ROBOTS_PER_THREAD = 1000;
+
+    private CellClaims claims;
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        claims = new CellClaims(ARENA_SIZE, ARENA_SIZE);
+    }
+
+    /**
+     * The robots one benchmark thread moves, with IDs of their own.
+     */
+    @State(Scope.Thread)
+    public static class Movers {
+        private int[] ids;
+        private int[] cellX;
+        private int[] cellY;
+        private SplittableRandom random;
+        private int nextRobot;
+
+        @Setup(Level.Trial)
+        public void setUp(CellClaimsBenchmark benchmark) {
+            int thread = benchmark.threadCount.getAndIncrement();
+            random = new SplittableRandom(thread);
+            ids = new int[ROBOTS_PER_THREAD];
+            cellX = new int[ROBOTS_PER_THREAD];
+            cellY = new int[ROBOTS_PER_THREAD];
+            for (int i = 0; i < ROBOTS_PER_THREAD; i++) {
+                ids[i] = thread * ROBOTS_PER_THREAD + i + 1;
+                do {
+                    cellX[i] = random.nextInt(ARENA_SIZE);
+                    cellY[i] = random.nextInt(ARENA_SIZE);
+                } while (!benchmark.claims.tryClaim(cellX[i], cellY[i], ids[i]));
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean move(Movers movers) {
+        int robot = movers.nextRobot;
+        movers.nextRobot = robot + 1 == ROBOTS_PER_THREAD ? 0 : robot + 1;
+        int x = movers.cellX[robot];
+        int y = movers.cellY[robot];
+        int nextX = x;
+        int nextY = y;
+        switch (movers.random.nextInt(4)) {
+            case 0 -> nextX++;
+            case 1 -> nextX--;
+            case 2 -> nextY++;
+            default -> nextY--;
+        }
+        if (!claims.tryClaim(nextX, nextY, movers.ids[robot])) {
+            return false;
+        }
+        claims.release(x, y, movers.ids[robot]);
+        movers.cellX[robot] = nextX;
+        movers.cellY[robot] = nextY;
+        return true;
+    }
+}
@@ -0,0 +1,34 @@
+package edu.curtin.saed.assignment1.benchmark;
+
+import edu.curtin.saed.assignment1.gamelogic.EventLogger;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long game threads spend handing log messages to the EventLogger. Each iteration enqueues a fixed
+ * batch of messages into a fresh, unstarted logger, so the queue cannot grow without bound during the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, batchSize = EventLoggerBenchmark.BATCH_SIZE)
+@Measurement(iterations = 10, batchSize = EventLoggerBenchmark.BATCH_SIZE)
+@Threads(4)
+public class EventLoggerBenchmark {
+
+    public static final int BATCH_SIZE = 100_000;
+    private static final String MESSAGE = "Robot spawned at (0,0) with ID 1";
+
+    private EventLogger eventLogger;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        eventLogger = new EventLogger(null);
+    }
+
+    @Benchmark
+    public void enqueueLogMessage() {
+        eventLogger.enqueueLogMessage(MESSAGE);
+    }
+}
@@ -0,0 +1,53 @@
+package edu.curtin.saed.assignment1.benchmark;
+
+import edu.curtin.saed.assignment1.gamelogic.GameState;
+import edu.curtin.saed.assignment1.worldobjects.Robot;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures command throughput of the GameState event loop while several threads add, delete and query robots at
+ * the same time, the way the spawner, movement pool and arena do during a game.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GameStateBenchmark {
+
+    private final AtomicInteger nextRobotId = new AtomicInteger();
+    private GameState gameState;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        gameState = new GameState(message -> {
+        });
+        gameState.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        gameState.stop();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(2)
+    public void addAndDeleteRobot() throws InterruptedException {
+        Robot robot = new Robot(nextRobotId.incrementAndGet(), 1000, 0, 0);
+        gameState.addRobot(robot);
+        gameState.deleteRobot(robot);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(2)
+    public int getRobots() throws InterruptedException, ExecutionException {
+        CompletableFuture<Integer> robotCount = new CompletableFuture<>();
+        gameState.asyncGetRobots(robots -> robotCount.complete(robots.size()));
+        return robotCount.get();
+    }
+}
@@ -0,0 +1,72 @@
+package edu.curtin.saed.assignment1.benchmark;
+
+import edu.curtin.saed.assignment1.gamelogic.ArenaSettings;
+import edu.curtin.saed.assignment1.gamelogic.GameState;
+import edu.curtin.saed.assignment1.robot.RobotRules;
+import edu.curtin.saed.assignment1.worldobjects.Robot;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures one complete robot move as Movement makes it: choosing the next cell from the robot's own random
+ * stream into a reused array, claiming it through the robot's reusable move commands, and completing the move,
+ * with the results passed back as plain booleans. The game state runs headless on the benchmark thread, so the
+ * game thread's half of the move is measured too, and each operation moves the next robot in turn.
+ * <p>
+ * Run it with the allocation profiler, e.g. 'java -jar build/libs/*-jmh.jar MoveAllocationBenchmark -prof gc':
+ * gc.alloc.rate.norm is the bytes allocated per move, which should be 0 in steady state. Nothing reads the world
+ * snapshot here, so none is published; with a renderer attached, each frame's snapshot copies the robot table once
+ * rather than costing anything per move.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MoveAllocationBenchmark {
+
+    private static final int ARENA_SIZE = 256;
+
+    @Param({"100", "10000"})
+    public int robotCount;
+
+    private GameState gameState;
+    private GameState.MoveCommands[] moveCommands;
+    private SplittableRandom[] randoms;
+    private final int[] nextCell = new int[2];
+    private int nextRobot;
+    private long moves;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        gameState = new GameState(new ArenaSettings(ARENA_SIZE, ARENA_SIZE));
+        gameState.startHeadless();
+        moveCommands = new GameState.MoveCommands[robotCount];
+        randoms = new SplittableRandom[robotCount];
+        SplittableRandom seed = new SplittableRandom(42);
+        for (int i = 0; i < robotCount; i++) {
+            Robot robot = new Robot(i + 1, 1000, i % ARENA_SIZE, i / ARENA_SIZE);
+            randoms[i] = seed.split();
+            moveCommands[i] = gameState.newMoveCommands(robot, wallHit -> moves++);
+            gameState.addRobot(robot);
+        }
+        gameState.runPendingCommands();
+    }
+
+    @Benchmark
+    public long move() {
+        int robot = nextRobot;
+        nextRobot = robot + 1 == robotCount ? 0 : robot + 1;
+        GameState.MoveCommands mover = moveCommands[robot];
+        RobotRules.chooseNextCell(mover.getCellX(), mover.getCellY(), gameState.getCitadelPositionX(),
+                gameState.getCitadelPositionY(), gameState.getFlowField(), randoms[robot], nextCell);
+        if (!RobotRules.isGridBoundaryCheck(nextCell[0], nextCell[1], gameState.getGridWidth(), gameState.getGridHeight())) {
+            // A reserved move is completed at once, in the same batch, instead of after its duration
+            if (mover.reserve(nextCell[0], nextCell[1], RobotRules.MOVE_DURATION_MILLIS)) {
+                mover.complete();
+            }
+            gameState.runPendingCommands();
+        }
+        return moves;
+    }
+}
@@ -0,0 +1,109 @@
+package edu.curtin.saed.assignment1.benchmark;
+
+import edu.curtin.saed.assignment1.gamelogic.ArenaSettings;
+import edu.curtin.saed.assignment1.gamelogic.GameState;
+import edu.curtin.saed.assignment1.gamelogic.GameStatistics;
+import edu.curtin.saed.assignment1.robot.MovementExecutionMode;
+import edu.curtin.saed.assignment1.robot.MovementScheduling;
+import edu.curtin.saed.assignment1.robot.RobotRules;
+import edu.curtin.saed.assignment1.robot.Spawner;
+import edu.curtin.saed.assignment1.worldobjects.Robot;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures robot moves end to end, as the game makes them: robotCount robots, each moving every
+ * MIN_MOVE_DELAY_MILLIS, on a real game thread and Spawner whose platform pool has the given number of threads.
+ * Every stage of a move is included: the period firing, choosing and claiming the cell on a pool thread, the game
+ * thread recording the move, the arrival timer and the game thread completing the move.
+ * <p>
+ * Each invocation waits SAMPLE_MILLIS and counts what the game did meanwhile, reported per second: 'moves' is
+ * moves completed and 'attempts' also counts moves rejected because the cell was taken. The robots ask for
+ * robotCount * 1000 / MIN_MOVE_DELAY_MILLIS attempts a second, so an attempt rate below that means the game
+ * cannot keep up. Compare the rates across the thread counts: they only rise with the threads while the game
+ * thread, which runs two commands per move, keeps up. Once it is saturated, adding threads no longer helps. The
+ * largest arenas need a bigger heap, e.g. 'java -Xmx2g -jar build/libs/*-jmh.jar MoveThroughputBenchmark'.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MoveThroughputBenchmark {
+
+    private static final int ARENA_SIZE = 1000;
+    private static final long SAMPLE_MILLIS = 100;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"10000", "100000", "400000"})
+    public int robotCount;
+
+    @Param({"wheel", "executor"})
+    public String scheduling;
+
+    private GameState gameState;
+    private Spawner spawner;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        gameState = new GameState(new ArenaSettings(ARENA_SIZE, ARENA_SIZE));
+        MovementScheduling movementScheduling = "wheel".equals(scheduling)
+                ? MovementScheduling.TIMING_WHEEL : MovementScheduling.EXECUTOR;
+        spawner = new Spawner(gameState, MovementExecutionMode.PLATFORM_POOL, movementScheduling, threads);
+        gameState.start();
+
+        // Spread the robots evenly over the arena, so they start out of each other's way
+        int spacing = Math.max(1, (int) Math.sqrt((double) ARENA_SIZE * ARENA_SIZE / robotCount));
+        int perRow = ARENA_SIZE / spacing;
+        List<Robot> robots = new ArrayList<>(robotCount);
+        for (int i = 0; i < robotCount; i++) {
+            Robot robot = new Robot(i + 1, RobotRules.MIN_MOVE_DELAY_MILLIS, (i % perRow) * spacing, (i / perRow) * spacing);
+            gameState.addRobot(robot);
+            robots.add(robot);
+        }
+        spawner.resume(robots, robotCount);
+        spawner.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        spawner.stop();
+        gameState.stop();
+    }
+
+    /**
+     * The moves the game made during each invocation, which JMH reports per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Moves {
+        public long moves;
+        public long attempts;
+        private long lastMoves;
+        private long lastRejections;
+
+        @Setup(Level.Iteration)
+        public void setUp(MoveThroughputBenchmark benchmark) {
+            moves = 0;
+            attempts = 0;
+            GameStatistics statistics = benchmark.gameState.getStatistics();
+            lastMoves = statistics.getCellsTravelled();
+            lastRejections = statistics.getCollisionRejections();
+        }
+    }
+
+    @Benchmark
+    public void sample(Moves counters) throws InterruptedException {
+        Thread.sleep(SAMPLE_MILLIS);
+        GameStatistics statistics = gameState.getStatistics();
+        long moves = statistics.getCellsTravelled();
+        long rejections = statistics.getCollisionRejections();
+        counters.moves += moves - counters.lastMoves;
+        counters.attempts += moves - counters.lastMoves + rejections - counters.lastRejections;
+        counters.lastMoves = moves;
+        counters.lastRejections = rejections;
+    }
+}
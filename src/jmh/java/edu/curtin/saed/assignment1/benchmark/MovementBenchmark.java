@@ -0,0 +1,79 @@
+package edu.curtin.saed.assignment1.benchmark;
+
+import edu.curtin.saed.assignment1.gamelogic.ArenaSettings;
+import edu.curtin.saed.assignment1.gamelogic.GameState;
+import edu.curtin.saed.assignment1.robot.RobotRules;
+import edu.curtin.saed.assignment1.worldobjects.Robot;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a single robot move from start to finish, apart from waiting out its duration: choosing the next cell,
+ * claiming it, recording the move and completing it, which releases the cell the robot left. The arena holds an
+ * increasing number of other robots, which sizes the robot table, the claim table and the grid the move works
+ * on. They fill the rows furthest from the mover, so that the mover walks freely to the citadel. Once there, the
+ * rules would keep it in place, so it steps to a random neighbouring cell instead and walks back: every move claims
+ * a new cell. The game state runs headless on the benchmark thread, so only the cost of the move itself is
+ * measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MovementBenchmark {
+
+    // Large enough for the other robots to leave the mover's half of the arena, and the citadel, free
+    private static final int ARENA_SIZE = 256;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int robotCount;
+
+    private GameState gameState;
+    private GameState.MoveCommands mover;
+    private SplittableRandom random;
+    private final int[] nextCell = new int[2];
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        gameState = new GameState(message -> {
+        }, new ArenaSettings(ARENA_SIZE, ARENA_SIZE));
+        gameState.startHeadless();
+        random = new SplittableRandom(42);
+
+        // From the bottom-right corner backwards, row by row
+        for (int i = 1; i < robotCount; i++) {
+            int cell = ARENA_SIZE * ARENA_SIZE - i;
+            gameState.addRobot(new Robot(i + 1, 1000, cell % ARENA_SIZE, cell / ARENA_SIZE));
+        }
+        Robot robot = new Robot(1, 1000, 0, 0);
+        gameState.addRobot(robot);
+        gameState.runPendingCommands();
+        mover = gameState.newMoveCommands(robot, wallHit -> {
+        });
+    }
+
+    @Benchmark
+    public boolean move() {
+        RobotRules.chooseNextCell(mover.getCellX(), mover.getCellY(), gameState.getCitadelPositionX(),
+                gameState.getCitadelPositionY(), gameState.getFlowField(), random, nextCell);
+        if (nextCell[0] == mover.getCellX() && nextCell[1] == mover.getCellY()) {
+            // At the citadel: step off it, as a robot pushed aside would
+            if (random.nextBoolean()) {
+                nextCell[0] += random.nextBoolean() ? 1 : -1;
+            } else {
+                nextCell[1] += random.nextBoolean() ? 1 : -1;
+            }
+        }
+        if (RobotRules.isGridBoundaryCheck(nextCell[0], nextCell[1], gameState.getGridWidth(), gameState.getGridHeight())) {
+            return false;
+        }
+        boolean reserved = mover.reserve(nextCell[0], nextCell[1], RobotRules.MOVE_DURATION_MILLIS);
+        if (reserved) {
+            mover.complete();
+        }
+        // Runs the start and completion of the move, which releases the cell the mover left
+        gameState.runPendingCommands();
+        return reserved;
+    }
+}
@@ -0,0 +1,98 @@
+package edu.curtin.saed.assignment1.benchmark;
+
+import edu.curtin.saed.assignment1.scheduling.TimingWheel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the timing wheel with the ScheduledThreadPoolExecutor the Spawner used to time robot movement, with
+ * robotCount robots already moving at the game's periods of 500 to 2000 ms. The moves themselves do nothing, so
+ * only the scheduling is measured:
+ * <ul>
+ *     <li>scheduleAndCancel: a robot spawning and being destroyed, which is O(1) on the wheel and O(log n) in
+ *     the executor's heap.</li>
+ *     <li>fireBatch: BATCH_SIZE moves falling due at once and all running, which the wheel does in one wake-up
+ *     and the executor in one per move. The wheel's time includes waiting for its next tick of TICK_MILLIS.</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MovementSchedulerBenchmark {
+
+    private static final long TICK_MILLIS = 1;
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"wheel", "executor"})
+    public String scheduler;
+
+    @Param({"1000", "10000", "100000"})
+    public int robotCount;
+
+    private TimingWheel timingWheel;
+    private ScheduledThreadPoolExecutor executor;
+    private final SplittableRandom random = new SplittableRandom(1);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Runnable move = () -> {
+        };
+        if ("wheel".equals(scheduler)) {
+            timingWheel = new TimingWheel(TICK_MILLIS, TimeUnit.MILLISECONDS, Runnable::run);
+            timingWheel.start();
+            for (int i = 0; i < robotCount; i++) {
+                timingWheel.scheduleAtFixedRate(move, random.nextInt(1500), period(), TimeUnit.MILLISECONDS);
+            }
+        } else {
+            executor = new ScheduledThreadPoolExecutor(Runtime.getRuntime().availableProcessors());
+            // Otherwise cancelled robots stay in the heap until they fall due
+            executor.setRemoveOnCancelPolicy(true);
+            for (int i = 0; i < robotCount; i++) {
+                executor.scheduleAtFixedRate(move, random.nextInt(1500), period(), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (timingWheel != null) {
+            timingWheel.stop();
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private int period() {
+        return 500 + random.nextInt(1501);
+    }
+
+    @Benchmark
+    public boolean scheduleAndCancel() {
+        Runnable move = () -> {
+        };
+        if (timingWheel != null) {
+            return timingWheel.scheduleAtFixedRate(move, 1000, period(), TimeUnit.MILLISECONDS).cancel();
+        }
+        ScheduledFuture<?> future = executor.scheduleAtFixedRate(move, 1000, period(), TimeUnit.MILLISECONDS);
+        return future.cancel(false);
+    }
+
+    @Benchmark
+    public void fireBatch() throws InterruptedException {
+        CountDownLatch ran = new CountDownLatch(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            if (timingWheel != null) {
+                timingWheel.schedule(ran::countDown, 0, TimeUnit.MILLISECONDS);
+            } else {
+                executor.schedule(ran::countDown, 0, TimeUnit.MILLISECONDS);
+            }
+        }
+        ran.await();
+    }
+}
@@ -0,0 +1,126 @@
+package edu.curtin.saed.assignment1.benchmark;
+
+import edu.curtin.saed.assignment1.gamelogic.ArenaSettings;
+import edu.curtin.saed.assignment1.gamelogic.GameState;
+import edu.curtin.saed.assignment1.metrics.MetricsRegistry;
+import edu.curtin.saed.assignment1.robot.Spawner;
+import edu.curtin.saed.assignment1.wall.WallBuilder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+/**
+ * A soak test of the robot lifecycle: plays a real, threaded game for a long time, with a scripted player who
+ * keeps the citadel ringed with walls so that robots keep spawning and being destroyed, and samples the heap and
+ * the movement scheduler as it goes.
+ * <p>
+ * It passes if no zombie movement task (one still scheduled for a destroyed robot) is ever seen, so that the
+ * scheduler holds exactly one movement task per live robot, and if the used heap stays flat: its peak over the
+ * second half of the run may not exceed its peak over the first half by more than ALLOWED_GROWTH. The number of
+ * live robots, and with it the number of movement tasks, legitimately grows until the arena is crowded, so the
+ * task count itself is only reported, not checked. Run it from the benchmark jar, with the game's usual system
+ * properties:
+ * <pre>
+ * java -Dmovement.scheduler=executor -cp build/libs/*-jmh.jar edu.curtin.saed.assignment1.benchmark.RobotLifecycleSoak [minutes] [sampleSeconds]
+ * </pre>
+ */
+public final class RobotLifecycleSoak {
+
+    private static final double ALLOWED_GROWTH = 1.25;
+    private static final long HEAP_SLACK_BYTES = 4L * 1024 * 1024;
+    private static final long PLAYER_INTERVAL_MILLIS = 500;
+
+    private RobotLifecycleSoak() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        long minutes = args.length > 0 ? Long.parseLong(args[0]) : 10;
+        long sampleSeconds = args.length > 1 ? Long.parseLong(args[1]) : 30;
+        boolean passed = soak(ArenaSettings.fromSystemProperties(), minutes * 60_000, sampleSeconds * 1000);
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Plays the game for the given time and checks the samples.
+     *
+     * @return True if the lifecycle held steady.
+     */
+    private static boolean soak(ArenaSettings arenaSettings, long durationMillis, long sampleMillis) throws InterruptedException {
+        GameState gameState = new GameState(arenaSettings);
+        Spawner spawner = new Spawner(gameState);
+        WallBuilder wallBuilder = new WallBuilder(gameState);
+        MetricsRegistry metrics = new MetricsRegistry();
+        spawner.registerMetrics(metrics);
+        gameState.start();
+        wallBuilder.start();
+        spawner.start();
+
+        int citadelX = (int) gameState.getCitadelPositionX();
+        int citadelY = (int) gameState.getCitadelPositionY();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        int samples = (int) Math.max(2, durationMillis / sampleMillis);
+        long[] heap = new long[samples];
+        long maxZombies = 0;
+        long start = System.currentTimeMillis();
+        long nextPlayerMove = start;
+
+        System.out.printf("%8s %10s %8s %8s %8s %8s %10s %10s%n", "seconds", "heap KiB", "tasks", "live", "zombies",
+                "queued", "destroyed", "zombieRuns");
+        for (int sample = 0; sample < samples; sample++) {
+            long sampleTime = start + (sample + 1) * sampleMillis;
+            while (System.currentTimeMillis() < sampleTime) {
+                if (System.currentTimeMillis() >= nextPlayerMove) {
+                    // Ring the citadel; requests for cells that already have a wall are rejected
+                    for (int dx = -1; dx <= 1; dx++) {
+                        for (int dy = -1; dy <= 1; dy++) {
+                            if (dx != 0 || dy != 0) {
+                                wallBuilder.buildWall(citadelX + dx, citadelY + dy);
+                            }
+                        }
+                    }
+                    nextPlayerMove += PLAYER_INTERVAL_MILLIS;
+                }
+                Thread.sleep(Math.max(1, Math.min(nextPlayerMove, sampleTime) - System.currentTimeMillis()));
+            }
+            memory.gc();
+            heap[sample] = memory.getHeapMemoryUsage().getUsed();
+            long tasks = metrics.readGauge("spawner.robots.scheduled");
+            long zombies = metrics.readGauge("spawner.robots.zombieTasks");
+            maxZombies = Math.max(maxZombies, zombies);
+            System.out.printf("%8d %10d %8d %8d %8d %8d %10d %10d%n", (System.currentTimeMillis() - start) / 1000,
+                    heap[sample] / 1024, tasks, metrics.readGauge("spawner.robots.live"), zombies,
+                    metrics.readGauge("spawner.executor.queued"), metrics.readGauge("spawner.robots.destroyed"),
+                    metrics.readGauge("spawner.robots.zombieFirings"));
+        }
+
+        spawner.stop();
+        wallBuilder.stop();
+        gameState.stop();
+
+        long destroyed = metrics.readGauge("spawner.robots.destroyed");
+        boolean heapFlat = isFlat(heap, HEAP_SLACK_BYTES);
+        System.out.printf("%d robots destroyed, at most %d zombie tasks; heap %s%n", destroyed, maxZombies,
+                heapFlat ? "flat" : "GREW");
+        boolean passed = maxZombies == 0 && heapFlat;
+        System.out.println(passed ? "PASSED" : "FAILED");
+        return passed;
+    }
+
+    /**
+     * Checks that the peak of the second half of the samples is within ALLOWED_GROWTH (plus some slack, for
+     * small values) of the peak of the first half.
+     */
+    private static boolean isFlat(long[] samples, long slack) {
+        int half = samples.length / 2;
+        long firstPeak = 0;
+        long secondPeak = 0;
+        for (int i = 0; i < samples.length; i++) {
+            if (i < half) {
+                firstPeak = Math.max(firstPeak, samples[i]);
+            } else {
+                secondPeak = Math.max(secondPeak, samples[i]);
+            }
+        }
+        return secondPeak <= firstPeak * ALLOWED_GROWTH + slack;
+    }
+}
@@ -0,0 +1,55 @@
+package edu.curtin.saed.assignment1.benchmark;
+
+import edu.curtin.saed.assignment1.gamelogic.RobotTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what a rendered frame costs the robot storage at large robot counts: moving a frame's worth of robots
+ * (a sixtieth of them, as robots move about once a second and the arena draws 60 frames a second), copying the
+ * table for the frame's snapshot, and the render pass over that copy, interpolating where every robot is drawn.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RobotTableBenchmark {
+
+    private static final int ARENA_SIZE = 1000;
+    private static final int FRAMES_PER_SECOND = 60;
+
+    @Param({"1000", "100000"})
+    public int robotCount;
+
+    private RobotTable robots;
+    private SplittableRandom random;
+    private long nowNanos;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        robots = new RobotTable();
+        random = new SplittableRandom(42);
+        for (int i = 0; i < robotCount; i++) {
+            robots.add(i + 1, 1000, i % ARENA_SIZE, i / ARENA_SIZE);
+        }
+    }
+
+    @Benchmark
+    public double frame() {
+        nowNanos += TimeUnit.SECONDS.toNanos(1) / FRAMES_PER_SECOND;
+        for (int i = 0; i < robotCount / FRAMES_PER_SECOND; i++) {
+            int slot = random.nextInt(robots.getSlotCount());
+            robots.completeMove(slot);
+            robots.startMove(slot, robots.getCellX(slot) + 1, robots.getCellY(slot), nowNanos, 400);
+        }
+        RobotTable snapshot = robots.copy();
+        double sum = 0;
+        for (int slot = 0; slot < snapshot.getSlotCount(); slot++) {
+            if (snapshot.isRobot(slot)) {
+                sum += snapshot.getRenderX(slot, nowNanos) + snapshot.getRenderY(slot, nowNanos);
+            }
+        }
+        return sum;
+    }
+}
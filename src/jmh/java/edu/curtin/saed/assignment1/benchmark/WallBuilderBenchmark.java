@@ -0,0 +1,43 @@
+package edu.curtin.saed.assignment1.benchmark;
+
+import edu.curtin.saed.assignment1.gamelogic.GameState;
+import edu.curtin.saed.assignment1.wall.WallBuilder;
+import edu.curtin.saed.assignment1.worldobjects.Wall;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures WallBuilder.buildWall when the player clicks a cell that already has a wall, so the request is
+ * rejected by the duplicate check. The game state runs headless on the benchmark thread.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WallBuilderBenchmark {
+
+    private GameState gameState;
+    private WallBuilder wallBuilder;
+    private int wallX;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        gameState = new GameState(message -> {
+        });
+        gameState.startHeadless();
+        wallBuilder = new WallBuilder(gameState);
+
+        // One below the limit, otherwise buildWall returns before reaching the duplicate check
+        for (int x = 0; x < GameState.MAX_WALLS - 1; x++) {
+            gameState.addWalls(new Wall(x, 1));
+        }
+        gameState.runPendingCommands();
+    }
+
+    @Benchmark
+    public void buildWallOnExistingWall() {
+        wallX = (wallX + 1) % (GameState.MAX_WALLS - 1);
+        wallBuilder.buildWall(wallX, 1);
+        gameState.runPendingCommands();
+    }
+}
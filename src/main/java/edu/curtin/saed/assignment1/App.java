@@ -1,8 +1,16 @@
 package edu.curtin.saed.assignment1;
 
+import edu.curtin.saed.assignment1.gamelogic.ArenaSettings;
 import edu.curtin.saed.assignment1.gamelogic.EventLogger;
+import edu.curtin.saed.assignment1.gamelogic.GameSave;
+import edu.curtin.saed.assignment1.gamelogic.GameStatistics;
 import edu.curtin.saed.assignment1.gamelogic.GameState;
+import edu.curtin.saed.assignment1.journal.GameJournal;
+import edu.curtin.saed.assignment1.metrics.EventCounter;
+import edu.curtin.saed.assignment1.metrics.JmxMetricsExporter;
+import edu.curtin.saed.assignment1.metrics.MetricsRegistry;
 import edu.curtin.saed.assignment1.robot.Spawner;
+import edu.curtin.saed.assignment1.savegame.SaveGameManager;
 import edu.curtin.saed.assignment1.ui.JFXArena;
 import edu.curtin.saed.assignment1.wall.WallBuilder;
 import javafx.animation.AnimationTimer;
@@ -14,11 +22,17 @@ import javafx.event.EventHandler;
 import javafx.geometry.Orientation;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.BorderPane;
 import javafx.stage.Stage;
 import javafx.stage.WindowEvent;
 import javafx.util.Duration;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 public class App extends Application {
 
     public static void main(String[] args) {
@@ -36,15 +50,38 @@ public class App extends Application {
         stage.setTitle("Tower Defense: The Final Stand");
 
         TextArea logger = new TextArea();
+        logger.setEditable(false); // The event logger trims the oldest lines itself, by length
         ToolBar toolbar = new ToolBar();
 
         EventLogger eventLogger = new EventLogger(logger);
-        GameState gameState = new GameState(eventLogger);
+        GameState gameState = new GameState(eventLogger, ArenaSettings.fromSystemProperties());
         JFXArena arena = new JFXArena(gameState);
 
         Spawner spawner = new Spawner(gameState);
         WallBuilder wallBuilder = new WallBuilder(gameState);
 
+        // Optionally journal every event and input to disk ('-Djournal.file=...'); the bus never drops its events
+        GameJournal journal = GameJournal.fromSystemProperties(gameState.getGridWidth(), gameState.getGridHeight());
+        if (journal != null) {
+            gameState.getEventBus().subscribeLossless(journal);
+            spawner.setInputRecorder(journal);
+            wallBuilder.setInputRecorder(journal);
+        }
+
+        // Live metrics, readable in process and as JMX MBeans (e.g. in JConsole)
+        MetricsRegistry metrics = new MetricsRegistry();
+        gameState.registerMetrics(metrics);
+        spawner.registerMetrics(metrics);
+        wallBuilder.registerMetrics(metrics);
+        eventLogger.registerMetrics(metrics);
+        gameState.getEventBus().subscribe(new EventCounter(metrics));
+        JmxMetricsExporter metricsExporter = new JmxMetricsExporter(metrics);
+        metricsExporter.register();
+
+        // Optionally resume a saved game ('-Dload.file=...'), before any robot spawns or wall is built
+        SaveGameManager saveGameManager = new SaveGameManager(gameState, spawner, wallBuilder);
+        loadSavedGame(saveGameManager);
+
         eventLogger.start();
         gameState.start();
         spawner.start();
@@ -52,19 +89,39 @@ public class App extends Application {
 
         arena.addListener(wallBuilder::buildWall);
 
-        EventHandler<WindowEvent> closeRequestHandler = event -> {
-            System.out.println("triggered");
+        // Stops every game thread; the game state goes first so its final events reach the logger and journal
+        Runnable stopGame = () -> {
             gameState.stop();
             eventLogger.stop();
             spawner.stop();
             wallBuilder.stop();
+            if (journal != null) {
+                journal.stop();
+            }
+            System.out.println(gameState.getStatistics().report());
+            System.out.println("Command latency: " + metrics.getHistogram("gameState.command.latency"));
+            System.out.println("Queue put wait: " + metrics.getHistogram("gameState.queue.putWait"));
+            metricsExporter.unregister();
+        };
+
+        EventHandler<WindowEvent> closeRequestHandler = event -> {
+            System.out.println("triggered");
+            stopGame.run();
             Platform.exit();
         };
         stage.setOnCloseRequest(closeRequestHandler);
 
         initializeGameWindow(stage, toolbar, arena, logger);
+        arena.setMetrics(metrics);
+        // F3 shows or hides the performance overlay
+        stage.getScene().addEventHandler(KeyEvent.KEY_PRESSED, event -> {
+            if (event.getCode() == KeyCode.F3) {
+                arena.togglePerformanceOverlay();
+            }
+        });
+        enableSaving(stage, saveGameManager);
         refreshToolBar(toolbar, gameState, wallBuilder);
-        refreshGameWindow(arena, gameState, spawner, wallBuilder, eventLogger);
+        refreshGameWindow(arena, gameState, stopGame);
     }
 
     /**
@@ -91,9 +148,63 @@ public class App extends Application {
         stage.show();
     }
 
+    /**
+     * Restores the saved game named by the 'load.file' system property, if there is one. A save that cannot be
+     * restored is reported, and the game starts afresh.
+     *
+     * @param saveGameManager The save game manager of the new game.
+     */
+    private void loadSavedGame(SaveGameManager saveGameManager) {
+        String fileName = System.getProperty(SaveGameManager.LOAD_FILE_PROPERTY);
+        if (fileName == null || fileName.isBlank()) {
+            return;
+        }
+        try {
+            long startNanos = System.nanoTime();
+            GameSave save = saveGameManager.restore(Paths.get(fileName));
+            System.out.printf("Save: restored %d robots and %d walls from %s in %.1f ms%n", save.getRobots().size(),
+                    save.getWalls().size(), fileName, (System.nanoTime() - startNanos) / 1e6);
+        } catch (IOException e) {
+            System.err.println("Save: cannot restore " + fileName + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            System.err.println("Save: interrupted while restoring " + fileName);
+        }
+    }
+
+    /**
+     * Lets the player save the game to the file named by the 'save.file' system property by pressing F5. The save
+     * is written on a background thread, so the window keeps responding while it is written.
+     *
+     * @param stage           The JavaFX stage showing the game.
+     * @param saveGameManager The save game manager of the game.
+     */
+    private void enableSaving(Stage stage, SaveGameManager saveGameManager) {
+        String fileName = System.getProperty(SaveGameManager.SAVE_FILE_PROPERTY);
+        if (fileName == null || fileName.isBlank()) {
+            return;
+        }
+        Path file = Paths.get(fileName);
+        stage.getScene().addEventHandler(KeyEvent.KEY_PRESSED, event -> {
+            if (event.getCode() == KeyCode.F5) {
+                Thread saveThread = new Thread(() -> {
+                    try {
+                        GameSave save = saveGameManager.save(file);
+                        System.out.printf("Save: %d robots and %d walls saved to %s%n", save.getRobots().size(),
+                                save.getWalls().size(), file);
+                    } catch (IOException e) {
+                        System.err.println("Save: cannot save to " + file + ": " + e.getMessage());
+                    } catch (InterruptedException e) {
+                        System.err.println("Save: interrupted while saving to " + file);
+                    }
+                }, "save-game-thread");
+                saveThread.start();
+            }
+        });
+    }
+
     /**
      * Refreshes the toolbar by updating the displayed game-related information, such as the current
-     * score and the total number of walls queued for construction. This method sets up a periodic
+     * score, robots destroyed, walls built and the total number of walls queued for construction. This method sets up a periodic
      * task to update these values.
      *
      * @param toolbar     The toolbar to be refreshed with updated game information.
@@ -102,13 +213,19 @@ public class App extends Application {
      */
     private void refreshToolBar(ToolBar toolbar, GameState gameState, WallBuilder wallBuilder) {
         Label scoreLabel = new Label();
+        Label killsLabel = new Label();
+        Label wallsLabel = new Label();
         Label queuedWalls = new Label();
-        Separator separator = new Separator(Orientation.VERTICAL);
-        toolbar.getItems().addAll(scoreLabel, separator, queuedWalls);
+        toolbar.getItems().addAll(scoreLabel, new Separator(Orientation.VERTICAL), killsLabel,
+                new Separator(Orientation.VERTICAL), wallsLabel, new Separator(Orientation.VERTICAL), queuedWalls);
 
+        // The statistics are lock-free counters, so reading them never holds up the game thread
+        GameStatistics statistics = gameState.getStatistics();
         Timeline timeline = new Timeline(new KeyFrame(Duration.millis(100), event -> {
             int currentScore = gameState.getScore();
             scoreLabel.setText("Score: " + currentScore);
+            killsLabel.setText("Robots Destroyed: " + statistics.getKills());
+            wallsLabel.setText("Walls Built: " + statistics.getWallsBuilt() + " (" + statistics.getWallsDestroyed() + " destroyed)");
 
             int wallsQueued = wallBuilder.getQueuedWallCount();
             queuedWalls.setText("Total Walls Queued: " + wallsQueued);
@@ -122,16 +239,15 @@ public class App extends Application {
      * Refreshes the game window by controlling the game loop and updating the game elements.
      * This method uses an AnimationTimer to manage frame updates and checks for game over conditions.
      *
-     * @param arena       The JFXArena instance representing the game arena.
-     * @param gameState   The game state object that manages the game's state.
-     * @param spawner     The spawner responsible for robot spawning.
-     * @param wallBuilder The wall builder responsible for wall construction.
-     * @param eventLogger The event logger for recording game events.
+     * @param arena     The JFXArena instance representing the game arena.
+     * @param gameState The game state object that manages the game's state.
+     * @param stopGame  Stops the game threads once the game is over.
      */
-    private void refreshGameWindow(JFXArena arena, GameState gameState, Spawner spawner, WallBuilder wallBuilder, EventLogger eventLogger) {
+    private void refreshGameWindow(JFXArena arena, GameState gameState, Runnable stopGame) {
 
         final int targetFps = 120;
         final long frameDurationNanos = 1_000_000_000L / targetFps;
+        arena.setTargetFps(targetFps);
         final long[] lastUpdateTime = {0};
 
         AnimationTimer animationTimer = new AnimationTimer() {
@@ -141,7 +257,7 @@ public class App extends Application {
                 long elapsedNanos = now - lastUpdateTime[0];
                 if (elapsedNanos >= frameDurationNanos) {
                     if (gameState.getIsGameOverStatus()) {
-                        showGameOverPopup(gameState, spawner, wallBuilder, eventLogger);
+                        showGameOverPopup(gameState, stopGame);
                         stop();
                         return;
                     }
@@ -155,25 +271,22 @@ public class App extends Application {
 
     /**
      * Displays a game-over popup dialog to inform the player about the game outcome.
-     * This method stops game-related threads and presents a dialog showing the player's final score.
+     * This method stops game-related threads and presents a dialog showing the player's final score and the
+     * game's statistics.
      *
-     * @param gameState   The game state object that manages the game's state.
-     * @param spawner     The spawner responsible for robot spawning.
-     * @param wallBuilder The wall builder responsible for wall construction.
-     * @param eventLogger The event logger for recording game events.
+     * @param gameState The game state object that manages the game's state.
+     * @param stopGame  Stops the game threads.
      */
-    private void showGameOverPopup(GameState gameState, Spawner spawner, WallBuilder wallBuilder, EventLogger eventLogger) {
+    private void showGameOverPopup(GameState gameState, Runnable stopGame) {
         // Display a game-over popup
         Platform.runLater(() -> {
-            gameState.stop();
-            eventLogger.stop();
-            spawner.stop();
-            wallBuilder.stop();
+            stopGame.run();
 
             Alert gameOverAlert = new Alert(Alert.AlertType.INFORMATION);
             gameOverAlert.setTitle("Tower Defense: The Final Stand");
             gameOverAlert.setHeaderText("You failed to protect the Citadel!");
-            gameOverAlert.setContentText("Your final score: " + gameState.getScore());
+            gameOverAlert.setContentText("Your final score: " + gameState.getScore() + "\n\n"
+                    + gameState.getStatistics().report());
 
             // Add a button to exit the application
             ButtonType exitButton = new ButtonType("Exit", ButtonBar.ButtonData.CANCEL_CLOSE);
@@ -0,0 +1,75 @@
+package edu.curtin.saed.assignment1.gamelogic;
+
+/**
+ * The dimensions of the arena, which are chosen at runtime. Every part of the game (the game state, the
+ * robots' movement and spawning, and the arena view) takes its grid size from here.
+ * <p>
+ * The size can be set with the 'arena.size' system property, either as a single number for a square arena
+ * (e.g. -Darena.size=100) or as WIDTHxHEIGHT (e.g. -Darena.size=200x50).
+ */
+public class ArenaSettings {
+
+    public static final String SIZE_PROPERTY = "arena.size";
+    public static final int DEFAULT_SIZE = 9;
+    public static final int MIN_SIZE = 3;
+    public static final int MAX_SIZE = 10_000;
+
+    private final int width;
+    private final int height;
+
+    public ArenaSettings(int width, int height) {
+        if (width < MIN_SIZE || width > MAX_SIZE || height < MIN_SIZE || height > MAX_SIZE) {
+            throw new IllegalArgumentException(String.format("Arena size %dx%d is outside %d..%d", width, height, MIN_SIZE, MAX_SIZE));
+        }
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Gets the default 9x9 arena.
+     */
+    public static ArenaSettings defaults() {
+        return new ArenaSettings(DEFAULT_SIZE, DEFAULT_SIZE);
+    }
+
+    /**
+     * Reads the arena size from the 'arena.size' system property, falling back to the default arena.
+     *
+     * @return The arena settings.
+     * @throws IllegalArgumentException If the property is set but is not a valid size.
+     */
+    public static ArenaSettings fromSystemProperties() {
+        String size = System.getProperty(SIZE_PROPERTY);
+        return (size == null || size.isBlank()) ? defaults() : parse(size);
+    }
+
+    /**
+     * Parses an arena size given either as a single number or as WIDTHxHEIGHT.
+     *
+     * @param size The size to parse.
+     * @return The arena settings.
+     * @throws IllegalArgumentException If the size is malformed or out of range.
+     */
+    public static ArenaSettings parse(String size) {
+        String[] parts = size.trim().toLowerCase().split("x");
+        try {
+            if (parts.length == 1) {
+                int side = Integer.parseInt(parts[0].trim());
+                return new ArenaSettings(side, side);
+            } else if (parts.length == 2) {
+                return new ArenaSettings(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed arena size: " + size, e);
+        }
+        throw new IllegalArgumentException("Malformed arena size: " + size);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
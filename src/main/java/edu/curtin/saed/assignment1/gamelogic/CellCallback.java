@@ -0,0 +1,6 @@
+package edu.curtin.saed.assignment1.gamelogic;
+
+@FunctionalInterface
+public interface CellCallback {
+    void provide(boolean result);
+}
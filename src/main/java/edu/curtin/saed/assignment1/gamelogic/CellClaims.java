@@ -0,0 +1,97 @@
+package edu.curtin.saed.assignment1.gamelogic;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Which robot holds each cell of the arena: the cell a robot stands in and, while it moves, the cell it is moving
+ * into. A robot claims a cell with a single compare-and-set, which only succeeds if no robot holds the cell, and
+ * releases its old cell once it has arrived in the new one. A cell can therefore never be held by two robots, however
+ * many threads claim cells at the same time, and a move is resolved by its own mover without a lock or a trip to the
+ * game thread. Movers only contend for a cell when they want the same one, which is exactly when all but one must
+ * fail. Any thread may claim and release cells.
+ * <p>
+ * Like the occupancy grid, the cells are stored sparsely, in chunks of CHUNK_SIZE x CHUNK_SIZE cells allocated when
+ * one of their cells is first claimed. A new chunk is installed with a compare-and-set as well, so threads claiming
+ * cells in it at the same time agree on one. Chunks are kept once allocated, as one cannot be freed safely while
+ * another thread may be about to claim a cell in it, so memory grows with the area the robots have reached. Robot IDs
+ * start at 1, so 0 marks a free cell.
+ */
+public class CellClaims {
+
+    private static final int FREE = 0;
+    private static final int CHUNK_SHIFT = 5;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final int width;
+    private final int height;
+    private final int chunkColumns;
+    // Chunk directory, row by row, where a chunk is null until one of its cells is claimed
+    private final AtomicReferenceArray<AtomicIntegerArray> chunks;
+
+    public CellClaims(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.chunkColumns = (width + CHUNK_MASK) >> CHUNK_SHIFT;
+        int chunkRowCount = (height + CHUNK_MASK) >> CHUNK_SHIFT;
+        this.chunks = new AtomicReferenceArray<>(chunkColumns * chunkRowCount);
+    }
+
+    /**
+     * Claims a cell for a robot, if no other robot holds it.
+     *
+     * @param x       The X-coordinate of the cell.
+     * @param y       The Y-coordinate of the cell.
+     * @param robotId The ID of the robot claiming the cell.
+     * @return True if the robot now holds the cell (or already did), or false if another robot holds it or the cell
+     * is outside the arena.
+     */
+    public boolean tryClaim(int x, int y, int robotId) {
+        if (!contains(x, y)) {
+            return false;
+        }
+        AtomicIntegerArray chunk = getOrCreateChunk(x, y);
+        int cell = cellInChunk(x, y);
+        return chunk.compareAndSet(cell, FREE, robotId) || chunk.get(cell) == robotId;
+    }
+
+    /**
+     * Releases a cell held by a robot. A cell held by another robot, or by none, is left untouched.
+     *
+     * @param x       The X-coordinate of the cell.
+     * @param y       The Y-coordinate of the cell.
+     * @param robotId The ID of the robot giving up the cell.
+     */
+    public void release(int x, int y, int robotId) {
+        AtomicIntegerArray chunk = contains(x, y) ? chunks.get(chunkIndex(x, y)) : null;
+        if (chunk != null) {
+            chunk.compareAndSet(cellInChunk(x, y), robotId, FREE);
+        }
+    }
+
+    private boolean contains(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    private AtomicIntegerArray getOrCreateChunk(int x, int y) {
+        int index = chunkIndex(x, y);
+        AtomicIntegerArray chunk = chunks.get(index);
+        if (chunk == null) {
+            AtomicIntegerArray created = new AtomicIntegerArray(CHUNK_SIZE * CHUNK_SIZE);
+            chunk = chunks.compareAndExchange(index, null, created);
+            if (chunk == null) {
+                chunk = created;
+            }
+        }
+        return chunk;
+    }
+
+    private int chunkIndex(int x, int y) {
+        return (y >> CHUNK_SHIFT) * chunkColumns + (x >> CHUNK_SHIFT);
+    }
+
+    private static int cellInChunk(int x, int y) {
+        return ((y & CHUNK_MASK) << CHUNK_SHIFT) | (x & CHUNK_MASK);
+    }
+}
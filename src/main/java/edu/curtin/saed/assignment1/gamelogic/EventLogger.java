@@ -1,67 +1,97 @@
 package edu.curtin.saed.assignment1.gamelogic;
 
-import javafx.application.Platform;
+import edu.curtin.saed.assignment1.metrics.MetricsRegistry;
+import javafx.animation.AnimationTimer;
 import javafx.scene.control.TextArea;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 
-public class EventLogger {
+/**
+ * Collects log messages from the game threads and shows them in the log view.
+ * <p>
+ * Messages are queued by any thread and drained once per frame on the JavaFX Application Thread, so however
+ * many messages arrive during a frame they reach the view in a single update. The view only holds the most
+ * recent lines (a bounded ring), so appending does not get slower as a session goes on; every line ever logged
+ * is still kept in an in-memory history.
+ */
+public class EventLogger implements GameLog {
+
+    public static final int DEFAULT_VIEW_LINES = 500;
 
     private final BlockingQueue<String> logEventQueue;
-    private Thread eventLoggerThread;
     private final TextArea logger;
+    private final int viewLines;
+    // Lengths (including the newline) of the lines currently in the view, oldest first
+    private final Deque<Integer> viewLineLengths;
+    private final List<String> history;
+    private final List<String> drained;
+    private AnimationTimer frameTimer;
 
     public EventLogger(TextArea logger) {
+        this(logger, DEFAULT_VIEW_LINES);
+    }
+
+    public EventLogger(TextArea logger, int viewLines) {
+        if (viewLines < 1) {
+            throw new IllegalArgumentException("The log view must hold at least one line");
+        }
         this.logger = logger;
+        this.viewLines = viewLines;
         this.logEventQueue = new LinkedBlockingQueue<>();
+        this.viewLineLengths = new ArrayDeque<>();
+        this.history = new ArrayList<>();
+        this.drained = new ArrayList<>();
     }
 
     /**
-     * Starts the Event Logger thread, which continuously listens for log messages
-     * in the logEventQueue and displays them using the displayLogMessage method.
-     * This method should be called to initialize and begin the event logging process.
+     * Registers the logger's metrics under 'eventLogger.': the number of messages waiting to be shown, and the
+     * number of lines in the history.
+     *
+     * @param registry The registry to add the metrics to.
      */
-    public void start() {
-        Runnable eventLoggerTask = () -> {
-            while (true) {
-                try {
-                    String message = logEventQueue.take(); // Block until an element is available
-                    displayLogMessage(message);
-
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    System.out.println(Thread.currentThread().getName() + "" + ": SHUTDOWN");
-                    break;
-                }
+    public void registerMetrics(MetricsRegistry registry) {
+        registry.gauge("eventLogger.backlog", this::getPendingCount);
+        registry.gauge("eventLogger.history", this::getHistorySize);
+    }
 
+    /**
+     * Starts draining queued log messages into the view once per frame. This must be called on the JavaFX
+     * Application Thread.
+     */
+    public void start() {
+        frameTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                flush();
             }
         };
-        eventLoggerThread = new Thread(eventLoggerTask, "event-logger-thread");
-        eventLoggerThread.start();
+        frameTimer.start();
     }
 
     /**
-     * Stops the Event Logger thread gracefully. It interrupts the thread to signal
-     * it for shutdown and then waits for the thread to complete using join().
-     * This method should be called when ending the event logging process.
+     * Stops draining log messages, after showing any that are still queued. This must be called on the JavaFX
+     * Application Thread.
      */
     public void stop() {
-        eventLoggerThread.interrupt();
-        try {
-            // Wait for the thread to complete using join()
-            eventLoggerThread.join();
-        } catch (InterruptedException e) {
-            System.err.println(e.getMessage());
+        if (frameTimer != null) {
+            frameTimer.stop();
         }
+        flush();
+        System.out.println("event-logger: SHUTDOWN");
     }
 
     /**
-     * Enqueues a log message to be processed by the Event Logger thread. The message
-     * will be added to the logEventQueue for display.
+     * Enqueues a log message to be shown in the view on the next frame.
      *
      * @param message The log message to be enqueued.
      */
+    @Override
     public void enqueueLogMessage(String message) {
         try {
             logEventQueue.put(message);
@@ -72,12 +102,63 @@ public class EventLogger {
     }
 
     /**
-     * Displays a log message in the user interface. This method is designed to be called
-     * on the JavaFX Application Thread to ensure proper UI updates.
+     * Moves every queued message into the history and shows them in the view with one append. Lines pushed out
+     * of the view's ring are deleted from the front of the view in the same update. This must be called on the
+     * JavaFX Application Thread.
+     */
+    public void flush() {
+        drained.clear();
+        logEventQueue.drainTo(drained);
+        if (drained.isEmpty()) {
+            return;
+        }
+        synchronized (history) {
+            history.addAll(drained);
+        }
+        if (logger == null) {
+            return;
+        }
+
+        // Only the last viewLines messages of a large burst would survive in the view, so skip the rest
+        int first = Math.max(0, drained.size() - viewLines);
+        StringBuilder text = new StringBuilder();
+        for (int i = first; i < drained.size(); i++) {
+            String line = drained.get(i);
+            text.append(line).append('\n');
+            viewLineLengths.addLast(line.length() + 1);
+        }
+
+        int excessChars = 0;
+        while (viewLineLengths.size() > viewLines) {
+            excessChars += viewLineLengths.removeFirst();
+        }
+        logger.appendText(text.toString());
+        if (excessChars > 0) {
+            logger.deleteText(0, excessChars);
+        }
+    }
+
+    /**
+     * Gets every line logged so far, including those no longer shown in the view.
      *
-     * @param message The log message to be displayed.
+     * @return A copy of the log history, oldest line first.
+     */
+    public List<String> getHistory() {
+        synchronized (history) {
+            return Collections.unmodifiableList(new ArrayList<>(history));
+        }
+    }
+
+    public int getHistorySize() {
+        synchronized (history) {
+            return history.size();
+        }
+    }
+
+    /**
+     * Gets the number of messages waiting to be shown.
      */
-    private void displayLogMessage(String message) {
-        Platform.runLater(() -> logger.appendText(message + "\n"));
+    public int getPendingCount() {
+        return logEventQueue.size();
     }
 }
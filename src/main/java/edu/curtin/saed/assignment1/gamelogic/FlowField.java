@@ -0,0 +1,353 @@
+package edu.curtin.saed.assignment1.gamelogic;
+
+import java.util.Arrays;
+
+/**
+ * A flow field over the arena that leads every cell to the citadel along the cheapest route, shared by all the
+ * robots: looking up a robot's next step is a single array read, however many robots there are.
+ * <p>
+ * Each cell holds its distance to the citadel and the direction of the neighbouring cell that starts the cheapest
+ * route from it. Stepping onto an open cell costs 1 and onto a wall WALL_COST, so robots go around a wall when
+ * the way around is short, and through it (damaging it) when the wall blocks the only reasonable route. Ties are
+ * broken the way robots have always moved without a field, one cell along the axis on which the citadel is
+ * furthest away, so on an arena with no walls the field gives exactly the classic moves.
+ * <p>
+ * The field starts as plain Manhattan distances, which need no search. When a wall is built or destroyed only the
+ * cells whose routes are affected are recomputed: a cheaper cell can only shorten routes, which spread out from it
+ * with Dijkstra's algorithm, and a dearer one can only lengthen the routes that went through it, which are found
+ * by following the directions backwards from it and then searched again from their unaffected neighbours. Cells
+ * that a cheaper route merely ties with choose their direction again as well, so that a wall built and removed
+ * again leaves the field exactly as it was.
+ * <p>
+ * The field is updated by the game thread only. Robots may read directions from any thread while an update is in
+ * progress; they then see a direction from before or after the update, which at worst costs one roundabout step.
+ * Arenas of more than MAX_CELLS cells have no field, and robots there head straight for the citadel.
+ */
+public class FlowField {
+
+    public static final int MAX_CELLS = 1 << 22;
+    public static final int OPEN_COST = 1;
+    public static final int WALL_COST = 8;
+
+    private static final int UNREACHED = Integer.MAX_VALUE;
+    private static final byte NONE = 0;
+    // Directions: 1 right, 2 left, 3 down, 4 up
+    private static final int[] DIRECTION_X = {0, 1, -1, 0, 0};
+    private static final int[] DIRECTION_Y = {0, 0, 0, 1, -1};
+    private static final byte[] OPPOSITE = {NONE, 2, 1, 4, 3};
+
+    private final int width;
+    private final int height;
+    private final int targetX;
+    private final int targetY;
+    private final int[] distances;
+    private final byte[] directions;
+    private final byte[] costs;
+
+    // Work space for updates, reused so that updates do not allocate once it has grown
+    private long[] heap = new long[64];
+    private int heapSize;
+    private int[] affected = new int[64];
+    private int affectedCount;
+    private long recomputedCells;
+
+    /**
+     * Creates a field over an arena with no walls.
+     *
+     * @param width   The width of the arena.
+     * @param height  The height of the arena.
+     * @param targetX The X-coordinate of the citadel.
+     * @param targetY The Y-coordinate of the citadel.
+     */
+    public FlowField(int width, int height, int targetX, int targetY) {
+        if ((long) width * height > MAX_CELLS) {
+            throw new IllegalArgumentException(String.format("A %dx%d arena is too large for a flow field", width, height));
+        }
+        this.width = width;
+        this.height = height;
+        this.targetX = targetX;
+        this.targetY = targetY;
+        this.distances = new int[width * height];
+        this.directions = new byte[width * height];
+        this.costs = new byte[width * height];
+        Arrays.fill(costs, (byte) OPEN_COST);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int cell = y * width + x;
+                distances[cell] = Math.abs(targetX - x) + Math.abs(targetY - y);
+                directions[cell] = preferredDirection(x, y);
+            }
+        }
+    }
+
+    /**
+     * Creates the field for an arena, unless the pathing mode is DIRECT or the arena has more than MAX_CELLS cells.
+     *
+     * @return The field, or null if robots should head straight for the citadel.
+     */
+    public static FlowField forPathing(PathingMode pathingMode, int width, int height, int targetX, int targetY) {
+        if (pathingMode == PathingMode.DIRECT || (long) width * height > MAX_CELLS) {
+            return null;
+        }
+        return new FlowField(width, height, targetX, targetY);
+    }
+
+    /**
+     * Gets the X-coordinate of the cell a robot in the given cell should step to next.
+     */
+    public int getNextX(int x, int y) {
+        return x + DIRECTION_X[directions[y * width + x]];
+    }
+
+    /**
+     * Gets the Y-coordinate of the cell a robot in the given cell should step to next.
+     */
+    public int getNextY(int x, int y) {
+        return y + DIRECTION_Y[directions[y * width + x]];
+    }
+
+    /**
+     * Gets the cost of the cheapest route from a cell to the citadel.
+     */
+    public int getDistance(int x, int y) {
+        return distances[y * width + x];
+    }
+
+    /**
+     * Gets the total number of cells whose routes updates have recomputed so far, which shows how local the
+     * updates are.
+     */
+    public long getRecomputedCells() {
+        return recomputedCells;
+    }
+
+    /**
+     * Records that a wall has been built on, or removed from, a cell, and updates the routes it affects.
+     *
+     * @param x    The X-coordinate of the cell.
+     * @param y    The Y-coordinate of the cell.
+     * @param wall True if a wall now stands on the cell, false if it has gone.
+     * @throws IllegalArgumentException If the cell is outside the arena, where no wall can stand; its index would
+     *                                  wrap onto another row's cell.
+     */
+    public void setWall(int x, int y, boolean wall) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            throw new IllegalArgumentException(String.format("Cell (%d, %d) is outside the %dx%d arena", x, y, width, height));
+        }
+        int cell = y * width + x;
+        int newCost = wall ? WALL_COST : OPEN_COST;
+        int oldCost = costs[cell];
+        if (newCost == oldCost || (x == targetX && y == targetY)) {
+            return;
+        }
+        costs[cell] = (byte) newCost;
+        affectedCount = 0;
+        boolean cheaper = newCost < oldCost;
+        if (cheaper) {
+            // Routes can only get shorter, starting with those of the cell's neighbours
+            pushNeighboursOf(cell, true);
+        } else {
+            // Routes that stepped onto the cell can only get longer; forget them and search again from their edge
+            collectRoutesThrough(cell);
+            for (int i = 0; i < affectedCount; i++) {
+                distances[affected[i]] = UNREACHED;
+            }
+            for (int i = 0; i < affectedCount; i++) {
+                int bestDistance = bestNeighbourDistance(affected[i]);
+                if (bestDistance < distances[affected[i]]) {
+                    distances[affected[i]] = bestDistance;
+                    push(bestDistance, affected[i]);
+                }
+            }
+        }
+        propagate(cheaper);
+        for (int i = 0; i < affectedCount; i++) {
+            directions[affected[i]] = bestDirection(affected[i]);
+        }
+        recomputedCells += affectedCount;
+    }
+
+    /**
+     * Offers each neighbour of a cell the route through it, queueing those it improves.
+     *
+     * @param record True to add the neighbours it improves or ties with to the affected cells, as either may now
+     *               prefer to step onto the cell. A neighbour added more than once only has its direction chosen
+     *               more than once.
+     */
+    private void pushNeighboursOf(int cell, boolean record) {
+        int x = cell % width;
+        int y = cell / width;
+        for (int direction = 1; direction <= 4; direction++) {
+            int nx = x + DIRECTION_X[direction];
+            int ny = y + DIRECTION_Y[direction];
+            if (nx >= 0 && ny >= 0 && nx < width && ny < height) {
+                int neighbour = ny * width + nx;
+                int distance = costs[cell] + distances[cell];
+                if (distance < distances[neighbour]) {
+                    if (record) {
+                        addAffected(neighbour);
+                    }
+                    distances[neighbour] = distance;
+                    push(distance, neighbour);
+                } else if (record && distance == distances[neighbour]) {
+                    addAffected(neighbour);
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from the queued cells until no route can be improved.
+     *
+     * @param record True to add the cells it improves to the affected cells; false when they all are already.
+     */
+    private void propagate(boolean record) {
+        while (heapSize > 0) {
+            long entry = pop();
+            int cell = (int) entry;
+            if ((int) (entry >>> 32) == distances[cell]) {
+                pushNeighboursOf(cell, record);
+            }
+        }
+    }
+
+    /**
+     * Collects the cells whose routes step onto the given cell, by following the directions backwards from it.
+     */
+    private void collectRoutesThrough(int cell) {
+        int next = affectedCount;
+        addAffected(cell);
+        while (next < affectedCount) {
+            int current = affected[next++];
+            int x = current % width;
+            int y = current / width;
+            for (int direction = 1; direction <= 4; direction++) {
+                int nx = x + DIRECTION_X[direction];
+                int ny = y + DIRECTION_Y[direction];
+                if (nx >= 0 && ny >= 0 && nx < width && ny < height
+                        && directions[ny * width + nx] == OPPOSITE[direction]) {
+                    addAffected(ny * width + nx);
+                }
+            }
+        }
+        // The cell's own route does not depend on its cost, only on its neighbours'
+        affected[0] = affected[--affectedCount];
+    }
+
+    /**
+     * Gets the cost of the cheapest route from a cell through any of its neighbours.
+     */
+    private int bestNeighbourDistance(int cell) {
+        int x = cell % width;
+        int y = cell / width;
+        int best = UNREACHED;
+        for (int direction = 1; direction <= 4; direction++) {
+            int nx = x + DIRECTION_X[direction];
+            int ny = y + DIRECTION_Y[direction];
+            if (nx >= 0 && ny >= 0 && nx < width && ny < height) {
+                int neighbour = ny * width + nx;
+                if (distances[neighbour] != UNREACHED) {
+                    best = Math.min(best, costs[neighbour] + distances[neighbour]);
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Chooses the direction of a cell's cheapest route, preferring the classic move when routes tie.
+     */
+    private byte bestDirection(int cell) {
+        int x = cell % width;
+        int y = cell / width;
+        if (x == targetX && y == targetY) {
+            return NONE;
+        }
+        byte preferred = preferredDirection(x, y);
+        byte best = preferred;
+        int bestDistance = routeDistance(x, y, preferred);
+        for (byte direction = 1; direction <= 4; direction++) {
+            int distance = routeDistance(x, y, direction);
+            if (distance < bestDistance) {
+                best = direction;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Gets the cost of the route from a cell that starts with a step in the given direction.
+     */
+    private int routeDistance(int x, int y, byte direction) {
+        int nx = x + DIRECTION_X[direction];
+        int ny = y + DIRECTION_Y[direction];
+        if (nx < 0 || ny < 0 || nx >= width || ny >= height) {
+            return UNREACHED;
+        }
+        int neighbour = ny * width + nx;
+        return distances[neighbour] == UNREACHED ? UNREACHED : costs[neighbour] + distances[neighbour];
+    }
+
+    /**
+     * Gets the direction of the classic move: one cell along the axis on which the citadel is furthest away.
+     */
+    private byte preferredDirection(int x, int y) {
+        int dx = targetX - x;
+        int dy = targetY - y;
+        if (dx == 0 && dy == 0) {
+            return NONE;
+        }
+        if (Math.abs(dx) > Math.abs(dy)) {
+            return dx > 0 ? (byte) 1 : (byte) 2;
+        }
+        return dy > 0 ? (byte) 3 : (byte) 4;
+    }
+
+    private void addAffected(int cell) {
+        if (affectedCount == affected.length) {
+            affected = Arrays.copyOf(affected, affectedCount * 2);
+        }
+        affected[affectedCount++] = cell;
+    }
+
+    /**
+     * Adds a cell to the priority queue, a binary min-heap of (distance, cell) packed into longs.
+     */
+    private void push(int distance, int cell) {
+        if (heapSize == heap.length) {
+            heap = Arrays.copyOf(heap, heapSize * 2);
+        }
+        long entry = ((long) distance << 32) | cell;
+        int child = heapSize++;
+        while (child > 0) {
+            int parent = (child - 1) >> 1;
+            if (heap[parent] <= entry) {
+                break;
+            }
+            heap[child] = heap[parent];
+            child = parent;
+        }
+        heap[child] = entry;
+    }
+
+    private long pop() {
+        long top = heap[0];
+        long last = heap[--heapSize];
+        int parent = 0;
+        int child = 1;
+        while (child < heapSize) {
+            if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (last <= heap[child]) {
+                break;
+            }
+            heap[parent] = heap[child];
+            parent = child;
+            child = 2 * parent + 1;
+        }
+        heap[parent] = last;
+        return top;
+    }
+}
@@ -0,0 +1,72 @@
+package edu.curtin.saed.assignment1.gamelogic;
+
+/**
+ * One event read from the GameEventBus, as handed to subscribers.
+ * <p>
+ * To keep dispatching allocation-free, the bus reuses a single GameEvent for every event it dispatches: the
+ * values are only valid during the call to the subscriber, which must copy any it wants to keep. Text is only
+ * produced when a subscriber asks for it with toLogMessage().
+ */
+public class GameEvent {
+
+    private long sequence;
+    private GameEventType type;
+    private int robotId;
+    private int x;
+    private int y;
+    private long nanoTime;
+
+    public void set(long newSequence, GameEventType newType, int newRobotId, int newX, int newY, long newNanoTime) {
+        this.sequence = newSequence;
+        this.type = newType;
+        this.robotId = newRobotId;
+        this.x = newX;
+        this.y = newY;
+        this.nanoTime = newNanoTime;
+    }
+
+    /**
+     * Gets the position of the event in the stream of events published by the game, starting from 0.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public GameEventType getType() {
+        return type;
+    }
+
+    /**
+     * Gets the ID of the robot involved in the event, or 0 for wall events that involve no robot.
+     */
+    public int getRobotId() {
+        return robotId;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * Gets when the event was published, as a System.nanoTime() value, however much later it is dispatched.
+     */
+    public long getNanoTime() {
+        return nanoTime;
+    }
+
+    /**
+     * Formats the event as the message shown in the game log.
+     */
+    public String toLogMessage() {
+        return type.describe(robotId, x, y);
+    }
+
+    @Override
+    public String toString() {
+        return sequence + ": " + toLogMessage();
+    }
+}
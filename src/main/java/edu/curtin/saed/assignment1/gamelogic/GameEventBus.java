@@ -0,0 +1,239 @@
+package edu.curtin.saed.assignment1.gamelogic;
+
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A typed stream of game events, delivered to any number of subscribers.
+ * <p>
+ * Events are stored as primitive fields in a ring buffer that is allocated once, so publishing an event never
+ * allocates or formats anything. Each event is stamped with the time it was published. There is a single
+ * publisher (the game thread). Events are dispatched to the subscribers in publication order, either by the bus's
+ * own thread (after start()) or by whoever calls dispatchPending(), as the headless simulation does.
+ * <p>
+ * By default the publisher never waits for the subscribers. If dispatching falls more than a full ring behind,
+ * the oldest undelivered events are overwritten; they are skipped and counted as lost rather than stalling the
+ * game, and the subscribers are told how many they missed. Once a subscriber that must see every event (such as
+ * a journal) has been added with subscribeLossless(), the publisher instead waits for the bus's thread to make
+ * room when the ring is full. It only waits while that thread is running, so stopping the bus, or a bus that
+ * never started, still cannot stall the game.
+ */
+public class GameEventBus {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+    private static final GameEventType[] TYPES = GameEventType.values();
+    private static final long IDLE_PARK_NANOS = 100_000_000L;
+    private static final long ROOM_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+
+    private final int capacity;
+    private final int mask;
+    private final int[] types;
+    private final int[] robotIds;
+    private final int[] xs;
+    private final int[] ys;
+    private final long[] nanoTimes;
+    // Number of events published so far; the next event is written to slot (published & mask)
+    private final AtomicLong published;
+    // How far dispatching has got (events delivered, or skipped as lost), for a lossless publisher waiting for room
+    private final AtomicLong deliveredCount;
+    private final List<GameEventSubscriber> subscribers;
+    private final GameEvent event;
+    // Only touched by the dispatching thread
+    private long dispatched;
+    private volatile long lostCount;
+    private volatile boolean lossless;
+    private volatile boolean dispatcherWaiting;
+    private volatile boolean running;
+    private volatile Thread dispatcher;
+
+    public GameEventBus() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a bus whose ring holds the given number of events.
+     *
+     * @param capacity The capacity of the ring, which must be a power of two.
+     */
+    public GameEventBus(int capacity) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Event bus capacity must be a power of two: " + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.types = new int[capacity];
+        this.robotIds = new int[capacity];
+        this.xs = new int[capacity];
+        this.ys = new int[capacity];
+        this.nanoTimes = new long[capacity];
+        this.published = new AtomicLong();
+        this.deliveredCount = new AtomicLong();
+        this.subscribers = new CopyOnWriteArrayList<>();
+        this.event = new GameEvent();
+    }
+
+    /**
+     * Adds a subscriber. It receives the events published after the next dispatch begins.
+     */
+    public void subscribe(GameEventSubscriber subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    /**
+     * Adds a subscriber that must receive every event, and makes the publisher wait for room in the ring rather
+     * than overwrite undelivered events, for as long as the bus's own thread is running.
+     */
+    public void subscribeLossless(GameEventSubscriber subscriber) {
+        subscribers.add(subscriber);
+        lossless = true;
+    }
+
+    public void unsubscribe(GameEventSubscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * Publishes an event, stamped with the current System.nanoTime(). Must only be called by the single publishing
+     * thread.
+     *
+     * @param type    The type of event.
+     * @param robotId The ID of the robot involved, or 0 if no robot is involved.
+     * @param x       The X-coordinate of the cell where the event happened.
+     * @param y       The Y-coordinate of the cell where the event happened.
+     */
+    public void publish(GameEventType type, int robotId, int x, int y) {
+        long nanoTime = System.nanoTime();
+        long sequence = published.get();
+        if (lossless && sequence - deliveredCount.get() >= capacity - 1) {
+            waitForRoom(sequence);
+        }
+        int slot = (int) (sequence & mask);
+        types[slot] = type.ordinal();
+        robotIds[slot] = robotId;
+        xs[slot] = x;
+        ys[slot] = y;
+        nanoTimes[slot] = nanoTime;
+        published.set(sequence + 1);
+        if (dispatcherWaiting) {
+            dispatcherWaiting = false;
+            LockSupport.unpark(dispatcher);
+        }
+    }
+
+    /**
+     * Waits until the bus's thread has delivered enough events for the given sequence to be published without the
+     * dispatcher taking it for a lap: one slot is kept free, as a full ring looks lapped to the dispatcher. If that
+     * thread is not running (or is the caller), it does not wait and the oldest event may be lost.
+     */
+    private void waitForRoom(long sequence) {
+        Thread dispatchingThread = dispatcher;
+        while (sequence - deliveredCount.get() >= capacity - 1 && running && dispatchingThread != null
+                && !dispatchingThread.equals(Thread.currentThread())) {
+            LockSupport.unpark(dispatchingThread);
+            LockSupport.parkNanos(this, ROOM_WAIT_NANOS);
+        }
+    }
+
+    /**
+     * Delivers every event published since the last dispatch to every subscriber, on the calling thread. Only one
+     * thread may dispatch at a time: either the bus's own thread, or, if the bus was never started, the caller.
+     *
+     * @return The number of events delivered.
+     */
+    public int dispatchPending() {
+        long available = published.get();
+        int deliveredNow = 0;
+        while (dispatched < available) {
+            if (available - dispatched >= capacity) {
+                // The publisher has lapped the dispatcher; the events it overwrote are gone, and the slot after
+                // the newest event may be being overwritten right now
+                long oldestIntact = available - capacity + 1;
+                long lost = oldestIntact - dispatched;
+                lostCount = lostCount + lost;
+                dispatched = oldestIntact;
+                for (GameEventSubscriber subscriber : subscribers) {
+                    subscriber.onEventsLost(lost);
+                }
+            }
+            int slot = (int) (dispatched & mask);
+            event.set(dispatched, TYPES[types[slot]], robotIds[slot], xs[slot], ys[slot], nanoTimes[slot]);
+
+            // If the slot was overwritten while it was being read, the values may be torn, so re-check
+            VarHandle.acquireFence();
+            available = published.get();
+            if (available - dispatched >= capacity) {
+                continue;
+            }
+            for (GameEventSubscriber subscriber : subscribers) {
+                subscriber.onEvent(event);
+            }
+            dispatched++;
+            deliveredCount.lazySet(dispatched);
+            deliveredNow++;
+        }
+        return deliveredNow;
+    }
+
+    /**
+     * Starts the bus's own dispatching thread, which delivers events as soon as they are published.
+     */
+    public void start() {
+        running = true;
+        dispatcher = new Thread(() -> {
+            while (running) {
+                if (dispatchPending() == 0) {
+                    // Announce that we are about to park, then check once more so a publish cannot be missed
+                    dispatcherWaiting = true;
+                    if (published.get() == dispatched && running) {
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    }
+                    dispatcherWaiting = false;
+                }
+            }
+            System.out.println(Thread.currentThread().getName() + ": SHUTDOWN");
+        }, "event-bus-thread");
+        dispatcher.start();
+    }
+
+    /**
+     * Stops the dispatching thread, then delivers any events still pending on the calling thread.
+     */
+    public void stop() {
+        running = false;
+        if (dispatcher != null) {
+            LockSupport.unpark(dispatcher);
+            try {
+                dispatcher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                System.err.println(e.getMessage());
+                return;
+            }
+        }
+        dispatchPending();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getPublishedCount() {
+        return published.get();
+    }
+
+    /**
+     * Gets the number of events that were overwritten before they could be dispatched.
+     */
+    public long getLostCount() {
+        return lostCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d events published, %d lost", published.get(), lostCount);
+    }
+}
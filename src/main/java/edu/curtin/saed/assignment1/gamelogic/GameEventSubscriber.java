@@ -0,0 +1,23 @@
+package edu.curtin.saed.assignment1.gamelogic;
+
+/**
+ * Receives the events published on a GameEventBus, in the order they were published.
+ */
+@FunctionalInterface
+public interface GameEventSubscriber {
+    /**
+     * Handles one event. The event object is reused for the next event once this method returns.
+     *
+     * @param event The event.
+     */
+    void onEvent(GameEvent event);
+
+    /**
+     * Learns that events were overwritten before they could be delivered, in the place of those events in the
+     * stream. Subscribers that need not account for every event can ignore it.
+     *
+     * @param count The number of events lost.
+     */
+    default void onEventsLost(long count) {
+    }
+}
@@ -0,0 +1,47 @@
+package edu.curtin.saed.assignment1.gamelogic;
+
+/**
+ * The kinds of event the game state publishes on its event bus, each with the text it is logged as.
+ */
+public enum GameEventType {
+    ROBOT_SPAWNED {
+        @Override
+        public String describe(int robotId, int x, int y) {
+            return String.format("Robot spawned at (%d,%d) with ID %d", x, y, robotId);
+        }
+    },
+    ROBOT_DESTROYED {
+        @Override
+        public String describe(int robotId, int x, int y) {
+            return String.format("Robot with %d destroyed at (%d,%d)", robotId, x, y);
+        }
+    },
+    WALL_BUILT {
+        @Override
+        public String describe(int robotId, int x, int y) {
+            return String.format("Player built a wall at (%d,%d)", x, y);
+        }
+    },
+    WALL_DAMAGED {
+        @Override
+        public String describe(int robotId, int x, int y) {
+            return String.format("Wall at (%d,%d) damaged", x, y);
+        }
+    },
+    WALL_DESTROYED {
+        @Override
+        public String describe(int robotId, int x, int y) {
+            return String.format("Wall at (%d,%d) destroyed", x, y);
+        }
+    };
+
+    /**
+     * Formats an event of this type as a log message.
+     *
+     * @param robotId The ID of the robot involved, or 0 if no robot is involved.
+     * @param x       The X-coordinate of the cell where the event happened.
+     * @param y       The Y-coordinate of the cell where the event happened.
+     * @return The log message.
+     */
+    public abstract String describe(int robotId, int x, int y);
+}
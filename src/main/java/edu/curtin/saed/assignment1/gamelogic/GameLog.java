@@ -0,0 +1,10 @@
+package edu.curtin.saed.assignment1.gamelogic;
+
+/**
+ * Receives the log messages produced by the game state. The JavaFX EventLogger is one implementation;
+ * headless simulations can supply their own (or discard the messages entirely).
+ */
+@FunctionalInterface
+public interface GameLog {
+    void enqueueLogMessage(String message);
+}
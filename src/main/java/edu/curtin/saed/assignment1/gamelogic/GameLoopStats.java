@@ -0,0 +1,78 @@
+package edu.curtin.saed.assignment1.gamelogic;
+
+/**
+ * Statistics about the command batches executed by the GameState event loop. Only the game thread
+ * records batches; any thread may read the values.
+ */
+public class GameLoopStats {
+
+    private volatile long batchCount;
+    private volatile long commandCount;
+    private volatile int lastBatchSize;
+    private volatile int maxBatchSize;
+    private volatile long lastBatchNanos;
+    private volatile long totalBatchNanos;
+
+    /**
+     * Records a batch executed by the game thread.
+     *
+     * @param size  The number of commands executed in the batch.
+     * @param nanos The time taken to execute the batch, in nanoseconds.
+     */
+    public void recordBatch(int size, long nanos) {
+        batchCount = batchCount + 1;
+        commandCount = commandCount + size;
+        lastBatchSize = size;
+        if (size > maxBatchSize) {
+            maxBatchSize = size;
+        }
+        lastBatchNanos = nanos;
+        totalBatchNanos = totalBatchNanos + nanos;
+    }
+
+    public long getBatchCount() {
+        return batchCount;
+    }
+
+    public long getCommandCount() {
+        return commandCount;
+    }
+
+    public int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public long getLastBatchNanos() {
+        return lastBatchNanos;
+    }
+
+    /**
+     * Gets the average number of commands executed per batch.
+     *
+     * @return The average batch size, or 0 if no batch has been executed.
+     */
+    public double getAverageBatchSize() {
+        long batches = batchCount;
+        return batches == 0 ? 0.0 : (double) commandCount / batches;
+    }
+
+    /**
+     * Gets the average time taken to execute a batch.
+     *
+     * @return The average batch time in nanoseconds, or 0 if no batch has been executed.
+     */
+    public double getAverageBatchNanos() {
+        long batches = batchCount;
+        return batches == 0 ? 0.0 : (double) totalBatchNanos / batches;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d batches, %d commands, avg batch %.2f (max %d), avg batch time %.1f us",
+                batchCount, commandCount, getAverageBatchSize(), maxBatchSize, getAverageBatchNanos() / 1000.0);
+    }
+}
@@ -0,0 +1,226 @@
+package edu.curtin.saed.assignment1.gamelogic;
+
+import edu.curtin.saed.assignment1.worldobjects.Robot;
+import edu.curtin.saed.assignment1.worldobjects.Wall;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * A checkpoint of a running game: the world (robots, walls, score and game over status) together with the parts of
+ * the game held outside the game state (the walls waiting in the wall builder's queue and the spawner's last robot
+ * ID), and the compact binary file format it is saved in.
+ * <p>
+ * The file is a fixed header followed by fixed-size entries, all big-endian, and a CRC-32 of everything before it:
+ * <pre>
+ *   header: int magic, int version, int width, int height, int score, byte game over, int last robot ID,
+ *           int robot count, int wall count, int queued wall count
+ *   robot:  int ID, int delay, short prev x, prev y, curr x, curr y, next x, next y
+ *   wall:   short x, short y, byte health
+ *   queued wall: short x, short y
+ * </pre>
+ * Coordinates fit in a short because arenas are at most ArenaSettings.MAX_SIZE cells across. The whole file is read
+ * or written with a single buffer, so saving and restoring cost little more than the file I/O itself.
+ */
+public class GameSave {
+
+    public static final int MAGIC = 0x54445331; // "TDS1"
+    public static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 37;
+    private static final int ROBOT_SIZE = 20;
+    private static final int WALL_SIZE = 5;
+    private static final int QUEUED_WALL_SIZE = 4;
+    private static final int CHECKSUM_SIZE = 4;
+
+    private final int width;
+    private final int height;
+    private final int score;
+    private final boolean gameOver;
+    private final List<Robot> robots;
+    private final List<Wall> walls;
+    private final int lastRobotId;
+    private final List<Wall> queuedWalls;
+
+    public GameSave(int width, int height, int score, boolean gameOver, List<Robot> robots, List<Wall> walls,
+                    int lastRobotId, List<Wall> queuedWalls) {
+        this.width = width;
+        this.height = height;
+        this.score = score;
+        this.gameOver = gameOver;
+        this.robots = Collections.unmodifiableList(robots);
+        this.walls = Collections.unmodifiableList(walls);
+        this.lastRobotId = lastRobotId;
+        this.queuedWalls = Collections.unmodifiableList(queuedWalls);
+    }
+
+    /**
+     * Creates a copy of this save that also holds the state kept outside the game state.
+     *
+     * @param newLastRobotId The ID of the last robot the spawner created.
+     * @param newQueuedWalls The walls waiting in the wall builder's queue.
+     * @return The new save.
+     */
+    public GameSave withPendingWork(int newLastRobotId, List<Wall> newQueuedWalls) {
+        return new GameSave(width, height, score, gameOver, robots, walls, newLastRobotId, newQueuedWalls);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public List<Robot> getRobots() {
+        return robots;
+    }
+
+    public List<Wall> getWalls() {
+        return walls;
+    }
+
+    public int getLastRobotId() {
+        return lastRobotId;
+    }
+
+    public List<Wall> getQueuedWalls() {
+        return queuedWalls;
+    }
+
+    /**
+     * Writes the save to a file, replacing any existing file.
+     *
+     * @param file The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void write(Path file) throws IOException {
+        int size = HEADER_SIZE + robots.size() * ROBOT_SIZE + walls.size() * WALL_SIZE
+                + queuedWalls.size() * QUEUED_WALL_SIZE + CHECKSUM_SIZE;
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(width).putInt(height).putInt(score)
+                .put((byte) (gameOver ? 1 : 0)).putInt(lastRobotId)
+                .putInt(robots.size()).putInt(walls.size()).putInt(queuedWalls.size());
+        for (Robot robot : robots) {
+            buffer.putInt(robot.getId()).putInt(robot.getDelay())
+                    .putShort(cell(robot.getPrevX())).putShort(cell(robot.getPrevY()))
+                    .putShort(cell(robot.getCurrX())).putShort(cell(robot.getCurrY()))
+                    .putShort(cell(robot.getNextX())).putShort(cell(robot.getNextY()));
+        }
+        for (Wall wall : walls) {
+            buffer.putShort(cell(wall.getPositionX())).putShort(cell(wall.getPositionY()))
+                    .put((byte) wall.getHealthPoints());
+        }
+        for (Wall wall : queuedWalls) {
+            buffer.putShort(cell(wall.getPositionX())).putShort(cell(wall.getPositionY()));
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) checksum.getValue());
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Reads a save from a file.
+     *
+     * @param file The file to read.
+     * @return The save.
+     * @throws IOException If the file cannot be read, or is not a valid save.
+     */
+    public static GameSave read(Path file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE + CHECKSUM_SIZE || fileSize > Integer.MAX_VALUE) {
+                throw new IOException(file + " is not a saved game");
+            }
+            buffer = ByteBuffer.allocate((int) fileSize);
+            int bytesRead = 0;
+            while (buffer.hasRemaining() && bytesRead >= 0) {
+                bytesRead = channel.read(buffer);
+            }
+            if (buffer.hasRemaining()) {
+                throw new IOException(file + " was truncated while being read");
+            }
+        }
+        buffer.flip();
+
+        CRC32 checksum = new CRC32();
+        checksum.update(buffer.array(), 0, buffer.limit() - CHECKSUM_SIZE);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(buffer.limit() - CHECKSUM_SIZE) != (int) checksum.getValue()) {
+            throw new IOException(file + " is not a saved game, or is damaged");
+        }
+        buffer.getInt(); // Magic number
+        int version = buffer.getInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException(file + " has unsupported save format " + version);
+        }
+        int width = buffer.getInt();
+        int height = buffer.getInt();
+        int score = buffer.getInt();
+        boolean gameOver = buffer.get() != 0;
+        int lastRobotId = buffer.getInt();
+        int robotCount = buffer.getInt();
+        int wallCount = buffer.getInt();
+        int queuedWallCount = buffer.getInt();
+        long expectedSize = HEADER_SIZE + (long) robotCount * ROBOT_SIZE + (long) wallCount * WALL_SIZE
+                + (long) queuedWallCount * QUEUED_WALL_SIZE + CHECKSUM_SIZE;
+        if (expectedSize != buffer.limit()) {
+            throw new IOException(file + " is truncated or has trailing data");
+        }
+
+        List<Robot> robots = new ArrayList<>(robotCount);
+        for (int i = 0; i < robotCount; i++) {
+            int id = buffer.getInt();
+            int delay = buffer.getInt();
+            double prevX = buffer.getShort();
+            double prevY = buffer.getShort();
+            Robot robot = new Robot(id, delay, buffer.getShort(), buffer.getShort());
+            robot.setPrevX(prevX);
+            robot.setPrevY(prevY);
+            robot.setNextX(buffer.getShort());
+            robot.setNextY(buffer.getShort());
+            robots.add(robot);
+        }
+        List<Wall> walls = new ArrayList<>(wallCount);
+        for (int i = 0; i < wallCount; i++) {
+            Wall wall = new Wall(buffer.getShort(), buffer.getShort());
+            int healthPoints = buffer.get();
+            if (healthPoints < wall.getHealthPoints()) {
+                wall.setDamaged();
+            }
+            walls.add(wall);
+        }
+        List<Wall> queuedWalls = new ArrayList<>(queuedWallCount);
+        for (int i = 0; i < queuedWallCount; i++) {
+            queuedWalls.add(new Wall(buffer.getShort(), buffer.getShort()));
+        }
+        return new GameSave(width, height, score, gameOver, robots, walls, lastRobotId, queuedWalls);
+    }
+
+    private static short cell(double coordinate) {
+        return (short) Math.round(coordinate);
+    }
+}
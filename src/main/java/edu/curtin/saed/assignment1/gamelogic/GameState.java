@@ -1,65 +1,149 @@
 package edu.curtin.saed.assignment1.gamelogic;
 
+import edu.curtin.saed.assignment1.metrics.LatencyHistogram;
+import edu.curtin.saed.assignment1.metrics.MetricsRegistry;
+import edu.curtin.saed.assignment1.scheduling.IntrusiveMpscQueue;
 import edu.curtin.saed.assignment1.worldobjects.Citadel;
 import edu.curtin.saed.assignment1.worldobjects.Robot;
 import edu.curtin.saed.assignment1.worldobjects.Wall;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 import java.util.concurrent.*;
+import java.util.concurrent.locks.LockSupport;
 
 public class GameState {
 
+    private static final int COMMAND_QUEUE_CAPACITY = 64;
+    private static final int MAX_BATCH_SIZE = 32;
+    // Larger, as every moving robot may have a command in the non-blocking lane
+    private static final int MAX_NON_BLOCKING_BATCH_SIZE = 256;
+    public static final int MAX_WALLS = 10;
+
     private final Citadel citadel;
-    private final List<Robot> robots;
-    private final BlockingQueue<Runnable> robotQueue;
+    // The robots as parallel arrays, only touched on the game thread; snapshots hold copies of it
+    private final RobotTable robots;
     private final List<Wall> walls;
-    private final BlockingQueue<Runnable> wallQueue;
-    private int score;
-    private Thread thread;
+    // Cell-indexed view of the robots and walls, only touched on the game thread
+    private final OccupancyGrid grid;
+    // Which robot holds each cell, standing in it or moving into it; claimed and released from any thread
+    private final CellClaims claims;
+    // Shared routes to the citadel around the walls, updated on the game thread; null on arenas too large for one
+    private final FlowField flowField;
+    private boolean robotsChanged;
+    private boolean wallsChanged;
+    private long snapshotVersion;
+    private volatile WorldSnapshot snapshot;
+    // Set by readers of the snapshot and cleared when the next one is published, so snapshots are only built as
+    // often as someone looks at them (the arena, once a frame), not after every batch
+    private volatile boolean snapshotWanted = true;
+    // Set when the game thread has held back a snapshot that nobody had asked for yet
+    private volatile boolean snapshotHeldBack;
+    // Single multi-producer channel shared by robot and wall commands, so both are served in arrival order
+    private final BlockingQueue<Runnable> commandQueue;
+    // Unbounded lane for commands whose submitters must never wait, such as robot moves; it stays short because
+    // each robot has at most one move command in flight, and its commands link themselves in, so it never allocates
+    private final IntrusiveMpscQueue nonBlockingCommands;
+    // Set while the game thread is parked waiting for commands, so submitters know to unpark it
+    private volatile boolean gameThreadWaiting;
+    // Commands issued by the game thread itself (e.g. from inside a callback) are run in the same batch
+    private final Deque<Runnable> localCommands;
+    // Polled empty as it runs, like localCommands, as iterating over a list would allocate for every batch
+    private final Deque<Runnable> batch;
+    private final GameLoopStats loopStats;
+    // How long submitters waited to put a command on the full queue, and how long commands and batches took to run
+    private final LatencyHistogram putWaitHistogram;
+    private final LatencyHistogram commandHistogram;
+    private final LatencyHistogram batchHistogram;
+    // Score and running totals, recorded without locks by the game thread and the score updater
+    private final GameStatistics statistics;
+    private volatile Thread thread;
     private final ScheduledExecutorService scoreUpdater;
-    private final EventLogger eventLogger;
+    // Typed record of what happened in the game, published on the game thread and formatted only by subscribers
+    private final GameEventBus eventBus;
     private volatile boolean running = true;
     private final Runnable poison = () -> {
     };
-    private final Object mutexScore = new Object();
-    private final Object mutexWallQueue = new Object();
     private final Object mutexGameOver = new Object();
     private boolean isGameOver;
 
-    public GameState(EventLogger eventLogger) {
-        this.eventLogger = eventLogger;
+    public GameState(GameLog gameLog) {
+        this(gameLog, ArenaSettings.defaults());
+    }
+
+    /**
+     * Creates a game state whose events are also written, as text, to the given log.
+     */
+    public GameState(GameLog gameLog, ArenaSettings arenaSettings) {
+        this(gameLog, arenaSettings, PathingMode.fromSystemProperties());
+    }
+
+    /**
+     * Creates a game state whose events are also written, as text, to the given log, and whose robots find their
+     * way as the pathing mode says.
+     */
+    public GameState(GameLog gameLog, ArenaSettings arenaSettings, PathingMode pathingMode) {
+        this(arenaSettings, pathingMode);
+        eventBus.subscribe(event -> gameLog.enqueueLogMessage(event.toLogMessage()));
+    }
+
+    /**
+     * Creates a game state with no text log; its events can still be observed through getEventBus().
+     */
+    public GameState(ArenaSettings arenaSettings) {
+        this(arenaSettings, PathingMode.fromSystemProperties());
+    }
+
+    /**
+     * Creates a game state with no text log, whose robots find their way as the pathing mode says.
+     */
+    public GameState(ArenaSettings arenaSettings, PathingMode pathingMode) {
+        this.eventBus = new GameEventBus();
         this.thread = null;
-        double citadelX = (9 - 1) / 2.0; // 9 - 1 = grid size
-        double citadelY = (9 - 1) / 2.0; // 9 - 1 = grid size
+        // The citadel sits on the centre cell (rounded down for even sizes, so it is always on a whole cell)
+        double citadelX = (arenaSettings.getWidth() - 1) / 2;
+        double citadelY = (arenaSettings.getHeight() - 1) / 2;
         this.citadel = new Citadel(citadelX, citadelY);
         this.isGameOver = false;
-        this.robots = new ArrayList<>();
-        this.robotQueue = new ArrayBlockingQueue<>(30);
+        this.robots = new RobotTable();
         this.walls = new ArrayList<>();
-        this.wallQueue = new ArrayBlockingQueue<>(30);
-        this.score = 0;
+        this.grid = new OccupancyGrid(arenaSettings.getWidth(), arenaSettings.getHeight());
+        this.claims = new CellClaims(arenaSettings.getWidth(), arenaSettings.getHeight());
+        this.flowField = FlowField.forPathing(pathingMode, arenaSettings.getWidth(), arenaSettings.getHeight(),
+                (int) citadelX, (int) citadelY);
+        this.snapshot = WorldSnapshot.EMPTY;
+        this.commandQueue = new ArrayBlockingQueue<>(COMMAND_QUEUE_CAPACITY);
+        this.nonBlockingCommands = new IntrusiveMpscQueue();
+        this.localCommands = new ArrayDeque<>();
+        this.batch = new ArrayDeque<>(MAX_BATCH_SIZE);
+        this.loopStats = new GameLoopStats();
+        this.putWaitHistogram = new LatencyHistogram();
+        this.commandHistogram = new LatencyHistogram();
+        this.batchHistogram = new LatencyHistogram();
+        this.statistics = new GameStatistics();
         this.scoreUpdater = Executors.newScheduledThreadPool(1);
-        startScoreUpdater();
     }
 
     /**
-     * Starts the GameState thread, which manages the game's state by processing tasks
-     * related to robots and walls as long as the 'running' flag is true.
+     * Starts the GameState thread, which runs the game's event loop. The thread parks while both command
+     * lanes are idle and, once woken, drains up to MAX_BATCH_SIZE pending robot and wall commands, plus
+     * up to MAX_NON_BLOCKING_BATCH_SIZE from the non-blocking lane, and executes them as one batch, as long as
+     * the 'running' flag is true.
      * This method should be called to initialize and begin the game state processing.
      */
     public void start() {
         Runnable task = () -> {
             while (running) {
                 try {
-                    if (!robotQueue.isEmpty()) {
-                        robotQueue.take().run();
-                    }
-                    if (!wallQueue.isEmpty()) {
-                        wallQueue.take().run();
+                    if (takeCommands()) {
+                        runBatch();
+                    } else {
+                        // A non-blocking command is being added but is not linked in yet
+                        Thread.onSpinWait();
                     }
-
                 } catch (InterruptedException e) {
                     System.out.println(Thread.currentThread().getName() + "" + ": SHUTDOWN");
                     Thread.currentThread().interrupt();
@@ -68,33 +152,303 @@ public class GameState {
             }
         };
 
+        eventBus.start();
         this.thread = new Thread(task, "game-state-thread");
         thread.start();
+        startScoreUpdater();
+    }
+
+    /**
+     * Makes the calling thread the owner of the game state instead of starting a game thread. Commands
+     * submitted afterwards by that thread are only executed when it calls runPendingCommands(), and no score
+     * updater is started; the caller awards survival points itself. This is how the headless simulation
+     * drives the game rules at its own pace. Must be called instead of start(), never as well as it.
+     */
+    public void startHeadless() {
+        this.thread = Thread.currentThread();
+    }
+
+    /**
+     * Executes every pending command on the calling thread, including commands submitted by the commands
+     * themselves, and then delivers the events they published to the event bus subscribers. Only valid after
+     * startHeadless(), and only from the thread that called it.
+     */
+    public void runPendingCommands() {
+        commandQueue.drainTo(batch);
+        drainNonBlockingCommands(Integer.MAX_VALUE);
+        runBatch();
+        eventBus.dispatchPending();
     }
 
     /**
      * Stops the GameState thread gracefully. It sets the 'running' flag to false to signal
      * the thread for shutdown, then interrupts the thread to initiate the shutdown process.
-     * It also enqueues poison pills in the robotQueue and wallQueue to ensure thread termination.
-     * Finally, it waits for the thread to complete using join() and shuts down the score updater
-     * thread pool.
+     * It also offers a poison pill to the command queue in case the thread is not parked on it.
+     * Finally, it waits for the thread to complete using join(), reports the event loop statistics
+     * and shuts down the score updater thread pool.
      * This method should be called when ending the game state processing.
      */
     public void stop() {
         running = false;
         thread.interrupt(); // Signal the thread to stop gracefully
         try {
-            robotQueue.put(poison);
-            wallQueue.put(poison);
+            commandQueue.offer(poison);
             // Wait for the thread to complete using join()
             thread.join();
         } catch (InterruptedException e) {
             System.err.println(e.getMessage());
         }
+        System.out.println("Game loop: " + loopStats);
+        // Deliver the last events (such as the robot that reached the citadel) before the loggers stop
+        eventBus.stop();
+        System.out.println("Event bus: " + eventBus);
         // Also shut down the score updater thread pool
         scoreUpdater.shutdown();
     }
 
+    /**
+     * Gets the statistics collected by the event loop about the command batches it has executed.
+     *
+     * @return The event loop statistics.
+     */
+    public GameLoopStats getLoopStats() {
+        return loopStats;
+    }
+
+    /**
+     * Gets the bus on which the game publishes its events. Subscribers added here receive every robot spawn and
+     * destruction and every wall being built, damaged or destroyed.
+     *
+     * @return The event bus.
+     */
+    public GameEventBus getEventBus() {
+        return eventBus;
+    }
+
+    /**
+     * Registers the game state's metrics under 'gameState.': the depth of the command queue and how long
+     * submitters waited to put commands on it, the depth of the non-blocking lane, how long commands and batches
+     * took to execute, the robot and wall counts, the score and rejected spawns and moves, plus the event bus's
+     * published and lost event counts.
+     *
+     * @param registry The registry to add the metrics to.
+     */
+    public void registerMetrics(MetricsRegistry registry) {
+        registry.gauge("gameState.queue.depth", commandQueue::size);
+        registry.gauge("gameState.queue.capacity", () -> COMMAND_QUEUE_CAPACITY);
+        registry.gauge("gameState.nonBlockingQueue.depth", nonBlockingCommands::size);
+        registry.histogram("gameState.queue.putWait", putWaitHistogram);
+        registry.histogram("gameState.command.latency", commandHistogram);
+        registry.histogram("gameState.batch.latency", batchHistogram);
+        registry.gauge("gameState.robots", () -> getWorldSnapshot().getRobots().size());
+        registry.gauge("gameState.walls", () -> getWorldSnapshot().getWalls().size());
+        registry.gauge("gameState.score", this::getScore);
+        registry.gauge("gameState.spawnRejections", statistics::getSpawnRejections);
+        registry.gauge("gameState.collisionRejections", statistics::getCollisionRejections);
+        registry.gauge("gameState.events.published", eventBus::getPublishedCount);
+        registry.gauge("gameState.events.lost", eventBus::getLostCount);
+    }
+
+    /**
+     * Waits until a command is pending in either lane, or a held back snapshot has been asked for, then drains
+     * the next batch from both. The thread parks itself instead of waiting on the queue, as each wait on the
+     * queue's lock condition allocates and the game thread waits between most moves. Submitters only unpark it
+     * when it has announced that it is waiting, and it checks both lanes once more after announcing, so a command
+     * cannot be left behind while it waits.
+     *
+     * @return True if there is a batch to run, which is empty when it only has to publish a snapshot, or false if
+     * a non-blocking command is still being added.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    private boolean takeCommands() throws InterruptedException {
+        if (commandQueue.isEmpty() && nonBlockingCommands.isEmpty()) {
+            gameThreadWaiting = true;
+            try {
+                while (commandQueue.isEmpty() && nonBlockingCommands.isEmpty() && !isSnapshotRequested()) {
+                    LockSupport.park(this);
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                }
+            } finally {
+                gameThreadWaiting = false;
+            }
+        }
+        commandQueue.drainTo(batch, MAX_BATCH_SIZE);
+        drainNonBlockingCommands(MAX_NON_BLOCKING_BATCH_SIZE);
+        return !batch.isEmpty() || isSnapshotRequested();
+    }
+
+    private boolean isSnapshotRequested() {
+        return snapshotHeldBack && snapshotWanted;
+    }
+
+    /**
+     * Unparks the game thread if it is waiting for commands.
+     */
+    private void wakeGameThread() {
+        if (gameThreadWaiting) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void drainNonBlockingCommands(int maxCommands) {
+        for (int i = 0; i < maxCommands; i++) {
+            LaneCommand command = (LaneCommand) nonBlockingCommands.poll();
+            if (command == null) {
+                return;
+            }
+            batch.add(command);
+        }
+    }
+
+    /**
+     * Executes the commands drained into the current batch, followed by any commands the game thread
+     * submitted to itself while doing so, and records the batch in the loop statistics.
+     */
+    private void runBatch() {
+        long startNanos = System.nanoTime();
+        int executed = 0;
+        long commandStartNanos = startNanos;
+        Runnable command = batch.poll();
+        while (command != null) {
+            if (!poison.equals(command)) {
+                command.run();
+                executed++;
+                commandStartNanos = recordCommand(commandStartNanos);
+            }
+            command = batch.poll();
+        }
+
+        Runnable localCommand = localCommands.poll();
+        while (localCommand != null) {
+            localCommand.run();
+            executed++;
+            commandStartNanos = recordCommand(commandStartNanos);
+            localCommand = localCommands.poll();
+        }
+        if (robotsChanged || wallsChanged) {
+            if (snapshotWanted) {
+                publishSnapshot();
+            } else {
+                snapshotHeldBack = true;
+            }
+        }
+        long batchNanos = System.nanoTime() - startNanos;
+        loopStats.recordBatch(executed, batchNanos);
+        batchHistogram.record(batchNanos);
+    }
+
+    /**
+     * Records the execution time of the command that started at the given time and has just finished.
+     *
+     * @return The time now, when the next command starts.
+     */
+    private long recordCommand(long commandStartNanos) {
+        long now = System.nanoTime();
+        commandHistogram.record(now - commandStartNanos);
+        return now;
+    }
+
+    /**
+     * Publishes a new world snapshot of the robots and walls, copying whichever of them changed since the last one;
+     * an unchanged part is shared with the previous snapshot. The robots are copied as a whole, a few arrays of
+     * primitives, without an object per robot.
+     */
+    private void publishSnapshot() {
+        snapshotWanted = false;
+        snapshotHeldBack = false;
+        WorldSnapshot previous = snapshot;
+        RobotTable robotTable = robotsChanged ? robots.copy() : previous.getRobots();
+        List<Wall> wallList = previous.getWalls();
+        if (wallsChanged) {
+            List<Wall> wallCopies = new ArrayList<>(walls.size());
+            for (Wall wall : walls) {
+                wallCopies.add(new Wall(wall));
+            }
+            wallList = Collections.unmodifiableList(wallCopies);
+        }
+        snapshotVersion++;
+        snapshot = new WorldSnapshot(snapshotVersion, robotTable, wallList);
+        robotsChanged = false;
+        wallsChanged = false;
+    }
+
+    /**
+     * Gets the most recently published snapshot of the robots and walls. This never blocks and never queues a
+     * command, so it may be called from any thread, including the UI thread.
+     * <p>
+     * Snapshots are only built once someone has asked for one: a batch that changes the world while nobody has
+     * read the latest snapshot holds the next one back, and this call then asks the game thread for it, so it is
+     * ready by the next read (the arena's next frame). Moves therefore cost no copies while nothing is drawn. The
+     * thread that owns the game state sees its own changes at once, as the snapshot is published on the spot.
+     *
+     * @return The latest world snapshot.
+     */
+    public WorldSnapshot getWorldSnapshot() {
+        if (Thread.currentThread().equals(thread)) {
+            if (robotsChanged || wallsChanged) {
+                publishSnapshot();
+            }
+            return snapshot;
+        }
+        snapshotWanted = true;
+        if (snapshotHeldBack) {
+            // The game thread publishes the held back snapshot as soon as it is awake
+            wakeGameThread();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Submits a command to the game thread. Commands submitted from the game thread itself are run at the
+     * end of the current batch rather than being put on the bounded queue, which could otherwise deadlock
+     * the thread on its own queue.
+     *
+     * @param command The command to be executed on the game thread.
+     * @throws InterruptedException If the operation is interrupted.
+     */
+    private void submit(Runnable command) throws InterruptedException {
+        if (Thread.currentThread().equals(thread)) {
+            localCommands.add(command);
+        } else if (commandQueue.offer(command)) {
+            putWaitHistogram.record(0);
+            wakeGameThread();
+        } else {
+            long startNanos = System.nanoTime();
+            commandQueue.put(command);
+            putWaitHistogram.record(System.nanoTime() - startNanos);
+            wakeGameThread();
+        }
+    }
+
+    /**
+     * Submits a command to the game thread without ever waiting, through the unbounded non-blocking lane, for
+     * submitters that must not be held up: robot moves, and requests from the JavaFX application thread. Like
+     * submit(), commands from the game thread itself run at the end of the current batch. The game thread is
+     * only unparked if it is waiting.
+     *
+     * @param command The command to be executed on the game thread.
+     */
+    private void submitWithoutWaiting(Runnable command) {
+        submitWithoutWaiting(new RunnableCommand(command));
+    }
+
+    /**
+     * Submits a command through the non-blocking lane, as submitWithoutWaiting(Runnable) does, without allocating.
+     * The command must not be submitted again until it has run.
+     *
+     * @param command The command to be executed on the game thread.
+     */
+    private void submitWithoutWaiting(LaneCommand command) {
+        if (Thread.currentThread().equals(thread)) {
+            localCommands.add(command);
+            return;
+        }
+        nonBlockingCommands.add(command);
+        wakeGameThread();
+    }
+
     /**
      * Gets the X position of the citadel on the grid.
      *
@@ -134,28 +488,270 @@ public class GameState {
     }
 
     /**
-     * Adds a robot to the game. This method enqueues the task for adding the robot.
+     * Adds a robot to the game. This method enqueues the task for adding the robot. Unlike asyncSpawnRobot(), it
+     * does not check that the robot's cell is free.
      *
      * @param robot The robot to be added to the game.
      * @throws InterruptedException If the operation is interrupted.
      */
     public void addRobot(Robot robot) throws InterruptedException {
-        robotQueue.put(() -> {
-            String logMessage = String.format("Robot spawned at (%d,%d) with ID %d", Math.round(robot.getCurrX()), Math.round(robot.getCurrY()), robot.getId());
-            eventLogger.enqueueLogMessage(logMessage);
-            robots.add(robot);
+        submit(() -> {
+            claims.tryClaim(cell(robot.getCurrX()), cell(robot.getCurrY()), robot.getId());
+            placeRobot(robot);
+        });
+    }
+
+    /**
+     * Spawns a robot into the game if no other robot stands in, or is moving into, its starting cell.
+     * The robot claims the cell before it is placed, so it can never share the cell with another robot, whether
+     * spawned or moving in.
+     *
+     * @param robot          The robot to be spawned.
+     * @param spawnCallback  Receives true if the robot was spawned, or false if its cell was taken.
+     * @throws InterruptedException If the operation is interrupted.
+     */
+    public void asyncSpawnRobot(Robot robot, CellCallback spawnCallback) throws InterruptedException {
+        submit(() -> {
+            boolean spawn = claims.tryClaim(cell(robot.getCurrX()), cell(robot.getCurrY()), robot.getId());
+            if (spawn) {
+                placeRobot(robot);
+            } else {
+                statistics.recordSpawnRejection();
+            }
+            spawnCallback.provide(spawn);
+        });
+    }
+
+    /**
+     * Reserves the given cell as the next position of a robot, provided no other robot stands in it or has
+     * already reserved it. On success the robot's move is started: its next cell, start time and duration are
+     * recorded, from which the arena interpolates where to draw it. The Robot itself is not changed.
+     *
+     * @param robot               The robot that wants to move.
+     * @param nextX               The X-coordinate of the cell to move into.
+     * @param nextY               The Y-coordinate of the cell to move into.
+     * @param durationMillis      How long the move will take.
+     * @param reservationCallback Receives true if the cell was reserved, or false if it would collide.
+     * @throws InterruptedException If the operation is interrupted.
+     */
+    public void asyncReserveMove(Robot robot, int nextX, int nextY, int durationMillis, CellCallback reservationCallback) throws InterruptedException {
+        submit(() -> reservationCallback.provide(reserveMoveNow(robot.getId(), nextX, nextY, durationMillis)));
+    }
+
+    /**
+     * Creates the reusable move commands of a robot, through which it reserves cells and completes moves without
+     * ever waiting and without allocating.
+     *
+     * @param robot           The robot that moves, in the cell it was spawned or restored in.
+     * @param wallHitCallback Receives, after each completed move, true if the robot hit a wall and was destroyed,
+     *                        otherwise false.
+     * @return The robot's move commands.
+     */
+    public MoveCommands newMoveCommands(Robot robot, CellCallback wallHitCallback) {
+        return new MoveCommands(robot, wallHitCallback);
+    }
+
+    /**
+     * Checks a reservation and, if the cell is free, makes it. Must be called on the game thread.
+     *
+     * @return True if the cell was reserved.
+     */
+    private boolean reserveMoveNow(int robotId, int nextX, int nextY, int durationMillis) {
+        boolean alive = robots.slotOf(robotId) >= 0;
+        boolean reserved = alive && claims.tryClaim(nextX, nextY, robotId);
+        if (reserved) {
+            startMoveNow(robotId, nextX, nextY, durationMillis);
+        } else if (alive) {
+            statistics.recordCollisionRejection();
+        }
+        return reserved;
+    }
+
+    /**
+     * Starts the move of a robot into a cell it has claimed, recording the move for the snapshots. A robot that was
+     * removed after claiming the cell gives it up again instead. Must be called on the game thread.
+     */
+    private void startMoveNow(int robotId, int nextX, int nextY, int durationMillis) {
+        int slot = robots.slotOf(robotId);
+        if (slot < 0) {
+            claims.release(nextX, nextY, robotId);
+            return;
+        }
+        robots.startMove(slot, nextX, nextY, System.nanoTime(), durationMillis);
+        robotsChanged = true;
+    }
+
+    /**
+     * Completes a robot's move into the cell it reserved. If the cell is the citadel's the game is over. If a
+     * wall stands in that cell, the wall is damaged (or destroyed if it was already damaged) and the robot is
+     * destroyed.
+     *
+     * @param robot             The robot that has finished moving.
+     * @param wallHitCallback   Receives true if the robot hit a wall and was destroyed, otherwise false.
+     * @throws InterruptedException If the operation is interrupted.
+     */
+    public void asyncCompleteMove(Robot robot, CellCallback wallHitCallback) throws InterruptedException {
+        submit(() -> wallHitCallback.provide(completeMoveNow(robot.getId())));
+    }
+
+    /**
+     * Moves a robot into its reserved cell and deals with whatever is there. Must be called on the game thread.
+     *
+     * @return True if the robot hit a wall and was destroyed.
+     */
+    private boolean completeMoveNow(int robotId) {
+        int slot = robots.slotOf(robotId);
+        if (slot < 0) {
+            return false;
+        }
+        int fromX = robots.getCellX(slot);
+        int fromY = robots.getCellY(slot);
+        int x = robots.getNextX(slot);
+        int y = robots.getNextY(slot);
+        robots.completeMove(slot);
+        robotsChanged = true;
+        statistics.recordMove(robotId);
+        grid.moveRobot(robotId, fromX, fromY, x, y);
+        if (fromX != x || fromY != y) {
+            // The robot has arrived, so the cell it left is free for others to claim
+            claims.release(fromX, fromY, robotId);
+        }
+        if (isCitadelCell(x, y)) {
+            setGameOverStatus();
+        }
+
+        Wall wall = grid.getWall(x, y);
+        if (wall != null) {
+            if (wall.isMaxHealth()) {
+                damageWall(wall);
+            } else {
+                removeWall(wall);
+            }
+            removeRobot(slot);
+        }
+        return wall != null;
+    }
+
+    /**
+     * Asynchronously checks whether a wall has been built on the given cell. A cell outside the arena counts as
+     * walled, as no wall can be built there either, so callers never queue one.
+     *
+     * @param x            The X-coordinate of the cell.
+     * @param y            The Y-coordinate of the cell.
+     * @param wallCallback Receives true if a wall stands on the cell or it is outside the arena, otherwise false.
+     * @throws InterruptedException If the operation is interrupted.
+     */
+    public void asyncHasWall(int x, int y, CellCallback wallCallback) throws InterruptedException {
+        submit(() -> wallCallback.provide(!grid.contains(x, y) || grid.hasWall(x, y)));
+    }
+
+    /**
+     * Checks whether a wall has been built on the given cell, as asyncHasWall() does, but never waits, so it may
+     * be called from the JavaFX application thread.
+     *
+     * @param x The X-coordinate of the cell.
+     * @param y The Y-coordinate of the cell.
+     * @return A future completed on the game thread with true if a wall stands on the cell or it is outside the
+     *         arena, otherwise false.
+     */
+    public CompletableFuture<Boolean> checkWall(int x, int y) {
+        CompletableFuture<Boolean> wallFound = new CompletableFuture<>();
+        submitWithoutWaiting(() -> wallFound.complete(!grid.contains(x, y) || grid.hasWall(x, y)));
+        return wallFound;
+    }
+
+    /**
+     * Asynchronously captures the world as a GameSave: copies of every robot and wall, the score and the game over
+     * status, all taken together on the game thread so they are consistent with each other. The save holds no
+     * spawner or wall builder state; add it with GameSave.withPendingWork().
+     *
+     * @param saveCallback Receives the save, on the game thread.
+     * @throws InterruptedException If the operation is interrupted.
+     */
+    public void asyncCapture(GameSaveCallback saveCallback) throws InterruptedException {
+        submit(() -> {
+            List<Robot> robotCopyList = robotList();
+            List<Wall> wallCopyList = new ArrayList<>(walls.size());
+            for (Wall wall : walls) {
+                wallCopyList.add(new Wall(wall));
+            }
+            saveCallback.provide(new GameSave(grid.getWidth(), grid.getHeight(), getScore(), getIsGameOverStatus(),
+                    robotCopyList, wallCopyList, 0, List.of()));
+        });
+    }
+
+    /**
+     * Replaces the world with the one in a save: its robots, walls, score and game over status. This is meant for
+     * a game that has not started playing yet, since robots already moving keep their own movement schedules. The
+     * restored robots are placed directly, without publishing spawn or build events.
+     * <p>
+     * A move that was in progress when the game was saved is abandoned: the robot keeps the cell it was leaving, and
+     * its next move is chosen afresh.
+     *
+     * @param save The save to restore, whose arena size must match this game's.
+     * @throws InterruptedException If the operation is interrupted.
+     */
+    public void restore(GameSave save) throws InterruptedException {
+        if (save.getWidth() != grid.getWidth() || save.getHeight() != grid.getHeight()) {
+            throw new IllegalArgumentException(String.format("The save is for a %dx%d arena, not %dx%d",
+                    save.getWidth(), save.getHeight(), grid.getWidth(), grid.getHeight()));
+        }
+        submit(() -> {
+            for (int slot = 0; slot < robots.getSlotCount(); slot++) {
+                if (robots.isRobot(slot)) {
+                    releaseCells(slot);
+                }
+            }
+            for (Wall wall : walls) {
+                grid.removeWall(cell(wall.getPositionX()), cell(wall.getPositionY()));
+                updateFlowField(cell(wall.getPositionX()), cell(wall.getPositionY()), false);
+            }
+            robots.clear();
+            walls.clear();
+
+            for (Robot robot : save.getRobots()) {
+                int x = cell(robot.getCurrX());
+                int y = cell(robot.getCurrY());
+                robots.add(robot.getId(), robot.getDelay(), x, y);
+                grid.placeRobot(robot.getId(), x, y);
+                claims.tryClaim(x, y, robot.getId());
+            }
+            for (Wall wall : save.getWalls()) {
+                walls.add(wall);
+                grid.placeWall(wall, cell(wall.getPositionX()), cell(wall.getPositionY()));
+                updateFlowField(cell(wall.getPositionX()), cell(wall.getPositionY()), true);
+            }
+            robotsChanged = true;
+            wallsChanged = true;
+            statistics.resetScore(save.getScore());
+            synchronized (mutexGameOver) {
+                this.isGameOver = save.isGameOver();
+            }
         });
     }
 
     /**
      * Asynchronously retrieves the list of robots and provides it to the specified RobotCallback.
-     * The provided list is unmodifiable to ensure data integrity.
+     * The provided list holds copies made for the callback, so it does not change as the game goes on.
      *
      * @param robotCallback The callback interface to provide the list of robots to.
      * @throws InterruptedException If the operation is interrupted.
      */
     public void asyncGetRobots(RobotCallback robotCallback) throws InterruptedException {
-        robotQueue.put(() -> robotCallback.provide(Collections.unmodifiableList(robots)));
+        submit(() -> robotCallback.provide(Collections.unmodifiableList(robotList())));
+    }
+
+    /**
+     * Makes a Robot of every robot, in slot order. Must be called on the game thread.
+     */
+    private List<Robot> robotList() {
+        List<Robot> robotList = new ArrayList<>(robots.size());
+        for (int slot = 0; slot < robots.getSlotCount(); slot++) {
+            if (robots.isRobot(slot)) {
+                robotList.add(robots.getRobot(slot));
+            }
+        }
+        return robotList;
     }
 
     /**
@@ -166,18 +762,17 @@ public class GameState {
      * @throws InterruptedException If the operation is interrupted.
      */
     public void deleteRobot(Robot robot) throws InterruptedException {
-        robotQueue.put(() -> {
-            if (robot != null) {
-                String logMessage = String.format("Robot with %d destroyed at (%d,%d)", robot.getId(), Math.round(robot.getCurrX()), Math.round(robot.getCurrY()));
-                eventLogger.enqueueLogMessage(logMessage);
-                robots.remove(robot);
-                this.score += 100; // Add 100 points to the score each time a robot is destroyed
+        submit(() -> {
+            int slot = robot == null ? -1 : robots.slotOf(robot.getId());
+            if (slot >= 0) {
+                removeRobot(slot);
             }
         });
     }
 
     /**
-     * Adds a wall to the game grid if the maximum limit of 10 walls has not been reached yet.
+     * Adds a wall to the game grid if the maximum limit of 10 walls has not been reached yet, its cell is inside
+     * the arena and neither a wall nor a robot already stands on it.
      * The wall's details are logged. This method enqueues the task for adding the wall.
      *
      * @param wall The wall to be added to the game grid.
@@ -185,11 +780,19 @@ public class GameState {
      */
     public void addWalls(Wall wall) throws InterruptedException {
         // Max walls that can be on the grid at a given point in time is 10
-        if (walls.size() != 10) {
-            wallQueue.put(() -> {
-                String logMessage = String.format("Player built a wall at (%d,%d)", Math.round(wall.getPositionX()), Math.round(wall.getPositionY()));
-                eventLogger.enqueueLogMessage(logMessage);
+        if (walls.size() != MAX_WALLS) {
+            submit(() -> {
+                int x = cell(wall.getPositionX());
+                int y = cell(wall.getPositionY());
+                if (walls.size() == MAX_WALLS || !grid.contains(x, y) || grid.hasWall(x, y) || grid.hasRobot(x, y)) {
+                    return;
+                }
+                eventBus.publish(GameEventType.WALL_BUILT, 0, x, y);
+                statistics.recordWallBuilt();
                 walls.add(wall);
+                wallsChanged = true;
+                grid.placeWall(wall, x, y);
+                updateFlowField(x, y, true);
             });
         }
     }
@@ -202,7 +805,7 @@ public class GameState {
      * @throws InterruptedException If the operation is interrupted.
      */
     public void asyncGetWalls(WallCallback wallCallback) throws InterruptedException {
-        wallQueue.put(() -> wallCallback.provide(Collections.unmodifiableList(walls)));
+        submit(() -> wallCallback.provide(Collections.unmodifiableList(walls)));
     }
 
     /**
@@ -213,15 +816,10 @@ public class GameState {
      * @throws InterruptedException If the operation is interrupted.
      */
     public void updateWall(Wall wallToUpdate) throws InterruptedException {
-        wallQueue.put(() -> {
-            for (Wall wall : walls) {
-                boolean isWallToUpdate = wallToUpdate.getPositionX() == wall.getPositionX() && wallToUpdate.getPositionY() == wall.getPositionY();
-                if (isWallToUpdate) {
-                    String logMessage = String.format("Wall at (%d,%d) damaged", Math.round(wall.getPositionX()), Math.round(wall.getPositionY()));
-                    eventLogger.enqueueLogMessage(logMessage);
-                    wall.setDamaged();
-                    break;
-                }
+        submit(() -> {
+            Wall wall = grid.getWall(cell(wallToUpdate.getPositionX()), cell(wallToUpdate.getPositionY()));
+            if (wall != null) {
+                damageWall(wall);
             }
         });
     }
@@ -233,21 +831,136 @@ public class GameState {
      * @throws InterruptedException If the operation is interrupted.
      */
     public void deleteWall(Wall wall) throws InterruptedException {
-        wallQueue.put(() -> {
-            String logMessage = String.format("Wall at (%d,%d) destroyed", Math.round(wall.getPositionX()), Math.round(wall.getPositionY()));
-            eventLogger.enqueueLogMessage(logMessage);
-            walls.remove(wall);
-        });
+        submit(() -> removeWall(wall));
+    }
+
+    /**
+     * Adds a robot to the robot table and the occupancy grid. Only the robot's details are copied into the table;
+     * the Robot itself is not kept. Must be called on the game thread.
+     */
+    private void placeRobot(Robot robot) {
+        int x = cell(robot.getCurrX());
+        int y = cell(robot.getCurrY());
+        eventBus.publish(GameEventType.ROBOT_SPAWNED, robot.getId(), x, y);
+        statistics.recordSpawn();
+        robots.add(robot.getId(), robot.getDelay(), x, y);
+        robotsChanged = true;
+        grid.placeRobot(robot.getId(), x, y);
+    }
+
+    /**
+     * Removes a destroyed robot, in the given slot of the robot table, from the table and the occupancy grid and
+     * awards its points. Must be called on the game thread.
+     */
+    private void removeRobot(int slot) {
+        int robotId = robots.getId(slot);
+        int x = robots.getCellX(slot);
+        int y = robots.getCellY(slot);
+        eventBus.publish(GameEventType.ROBOT_DESTROYED, robotId, x, y);
+        releaseCells(slot);
+        robots.remove(slot);
+        robotsChanged = true;
+        statistics.recordKill(); // Awards 100 points for each robot destroyed
+    }
+
+    /**
+     * Takes the robot in the given slot of the robot table off the occupancy grid and releases its claims: the cell
+     * it stands in and the cell it is moving into, if any. Must be called on the game thread.
+     */
+    private void releaseCells(int slot) {
+        int robotId = robots.getId(slot);
+        grid.removeRobot(robotId, robots.getCellX(slot), robots.getCellY(slot));
+        claims.release(robots.getCellX(slot), robots.getCellY(slot), robotId);
+        claims.release(robots.getNextX(slot), robots.getNextY(slot), robotId);
+    }
+
+    /**
+     * Marks a wall as damaged in both the wall itself and the occupancy grid. Must be called on the game thread.
+     */
+    private void damageWall(Wall wall) {
+        int x = cell(wall.getPositionX());
+        int y = cell(wall.getPositionY());
+        eventBus.publish(GameEventType.WALL_DAMAGED, 0, x, y);
+        statistics.recordWallDamaged();
+        wall.setDamaged();
+        wallsChanged = true;
+        grid.setWallHealth(x, y, wall.getHealthPoints());
+    }
+
+    /**
+     * Removes a destroyed wall from the wall list and the occupancy grid. Must be called on the game thread.
+     */
+    private void removeWall(Wall wall) {
+        int x = cell(wall.getPositionX());
+        int y = cell(wall.getPositionY());
+        if (!wall.equals(grid.getWall(x, y))) {
+            return;
+        }
+        eventBus.publish(GameEventType.WALL_DESTROYED, 0, x, y);
+        statistics.recordWallDestroyed();
+        walls.remove(wall);
+        wallsChanged = true;
+        grid.removeWall(x, y);
+        updateFlowField(x, y, false);
+    }
+
+    /**
+     * Reroutes the flow field around a wall that was built or destroyed. Must be called on the game thread.
+     */
+    private void updateFlowField(int x, int y, boolean wall) {
+        if (flowField != null) {
+            flowField.setWall(x, y, wall);
+        }
+    }
+
+    /**
+     * Gets the field that leads robots to the citadel around the walls. Directions may be read from any thread.
+     *
+     * @return The flow field, or null if robots should head straight for the citadel.
+     */
+    public FlowField getFlowField() {
+        return flowField;
+    }
+
+    /**
+     * Converts a grid coordinate, which may be fractional while a robot is animating, to a cell index.
+     */
+    private static int cell(double coordinate) {
+        return (int) Math.round(coordinate);
     }
 
     /**
      * Starts a scheduled task to update the game score at a fixed rate.
      */
     private void startScoreUpdater() {
-        scoreUpdater.scheduleAtFixedRate(() -> {
-            // Increment the score by 10 every second
-            score += 10;
-        }, 1, 1, TimeUnit.SECONDS); // Run every 1 second
+        // Increment the score by 10 every second
+        scoreUpdater.scheduleAtFixedRate(this::awardSurvivalPoints, 1, 1, TimeUnit.SECONDS); // Run every 1 second
+    }
+
+    /**
+     * Awards the points the player earns for every second the citadel survives.
+     */
+    public void awardSurvivalPoints() {
+        statistics.recordSurvival();
+    }
+
+    /**
+     * Checks whether the given cell is the one the citadel stands on.
+     *
+     * @param x The X-coordinate of the cell.
+     * @param y The Y-coordinate of the cell.
+     * @return True if the citadel stands on the cell, otherwise false.
+     */
+    public boolean isCitadelCell(double x, double y) {
+        return x == citadel.getPositionX() && y == citadel.getPositionY();
+    }
+
+    public int getGridWidth() {
+        return grid.getWidth();
+    }
+
+    public int getGridHeight() {
+        return grid.getHeight();
     }
 
     /**
@@ -256,9 +969,7 @@ public class GameState {
      * @return The total number of walls built.
      */
     public int getTotalWallsBuilt() {
-        synchronized (mutexWallQueue) {
-            return this.walls.size();
-        }
+        return getWorldSnapshot().getWalls().size();
     }
 
     /**
@@ -267,8 +978,142 @@ public class GameState {
      * @return The current score.
      */
     public int getScore() {
-        synchronized (mutexScore) {
-            return this.score;
+        return (int) statistics.getScore();
+    }
+
+    /**
+     * Gets the game's running totals, such as kills and walls built, which may be read from any thread.
+     *
+     * @return The game statistics.
+     */
+    public GameStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * The reusable commands of one robot's moves: reserving its next cell and completing its move. They are made
+     * once per robot, by newMoveCommands(), and queued again for every move, so a move allocates nothing.
+     * <p>
+     * A reservation is resolved at once, on the mover's own thread, by claiming the cell in the claim table, so
+     * movers on any number of threads reserve cells in parallel and never wait for the game thread. The game thread
+     * is then told of the move without waiting for it, to record the move for drawing. Completing a move still
+     * runs on the game thread, which owns the walls and the citadel; it releases the cell the robot left and passes
+     * the outcome to the robot's callback as a plain boolean.
+     * <p>
+     * A robot must only have one move in progress: it may reserve again once its last move has completed or its
+     * reservation failed, and complete a move once its reservation succeeded.
+     * <p>
+     * The commands also tell the robot's mover which cell the robot stands in, as the game state does not change
+     * the Robot it was given. The cell is updated on the game thread just before the completion callback, and the
+     * mover reads it before its next reservation, so the chain of commands and callbacks between them makes the
+     * update visible without any further synchronisation.
+     */
+    public final class MoveCommands {
+
+        private final int robotId;
+        private final CellCallback wallHitCallback;
+        // Written by the robot before the move is queued, which publishes them to the game thread
+        private int nextX;
+        private int nextY;
+        private int durationMillis;
+        // Written by the game thread when a move completes, before the robot is told
+        private int cellX;
+        private int cellY;
+        private final LaneCommand startCommand = new LaneCommand() {
+            @Override
+            public void run() {
+                startMoveNow(robotId, nextX, nextY, durationMillis);
+            }
+        };
+        private final LaneCommand completeCommand = new LaneCommand() {
+            @Override
+            public void run() {
+                boolean wallHit = completeMoveNow(robotId);
+                int slot = robots.slotOf(robotId);
+                if (slot >= 0) {
+                    cellX = robots.getCellX(slot);
+                    cellY = robots.getCellY(slot);
+                }
+                wallHitCallback.provide(wallHit);
+            }
+        };
+
+        private MoveCommands(Robot robot, CellCallback wallHitCallback) {
+            this.robotId = robot.getId();
+            this.wallHitCallback = wallHitCallback;
+            this.cellX = cell(robot.getCurrX());
+            this.cellY = cell(robot.getCurrY());
+        }
+
+        /**
+         * Gets the X-coordinate of the cell the robot stands in, as of its last completed move. Only to be read by
+         * the robot's mover between moves.
+         */
+        public int getCellX() {
+            return cellX;
+        }
+
+        /**
+         * Gets the Y-coordinate of the cell the robot stands in, as of its last completed move. Only to be read by
+         * the robot's mover between moves.
+         */
+        public int getCellY() {
+            return cellY;
+        }
+
+        /**
+         * Reserves the given cell as the robot's next position, if no other robot holds it, and starts the move.
+         * The cell is claimed on the calling thread, so the result is known straight away; the game thread is then
+         * told of the move through the non-blocking lane.
+         *
+         * @param cellX          The X-coordinate of the cell to move into.
+         * @param cellY          The Y-coordinate of the cell to move into.
+         * @param moveMillis     How long the move will take.
+         * @return True if the cell was reserved, or false if it would collide.
+         */
+        public boolean reserve(int cellX, int cellY, int moveMillis) {
+            if (!claims.tryClaim(cellX, cellY, robotId)) {
+                statistics.recordCollisionRejection();
+                return false;
+            }
+            this.nextX = cellX;
+            this.nextY = cellY;
+            this.durationMillis = moveMillis;
+            submitWithoutWaiting(startCommand);
+            return true;
+        }
+
+        /**
+         * Completes the robot's move into the cell it reserved, as asyncCompleteMove() does, but never waits: the
+         * command goes through the non-blocking lane.
+         */
+        public void complete() {
+            submitWithoutWaiting(completeCommand);
+        }
+    }
+
+    /**
+     * A command for the non-blocking lane, which links itself into the lane, so queueing it allocates nothing.
+     */
+    private abstract static class LaneCommand extends IntrusiveMpscQueue.Node implements Runnable {
+        @Override
+        public abstract void run();
+    }
+
+    /**
+     * Carries a one-off command through the non-blocking lane.
+     */
+    private static final class RunnableCommand extends LaneCommand {
+
+        private final Runnable command;
+
+        private RunnableCommand(Runnable command) {
+            this.command = command;
+        }
+
+        @Override
+        public void run() {
+            command.run();
         }
     }
 }
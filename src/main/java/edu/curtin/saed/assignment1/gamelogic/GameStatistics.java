@@ -0,0 +1,189 @@
+package edu.curtin.saed.assignment1.gamelogic;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals of a game: the score, robots spawned and destroyed, walls built, damaged and destroyed, spawns
+ * and moves rejected because their cell was taken, and how far each robot has travelled.
+ * <p>
+ * Every total is a LongAdder, so recording never takes a lock and threads recording at the same time (the game
+ * thread awarding kills and the score updater awarding survival points) update separate cells instead of
+ * contending for one. Totals may be read from any thread, such as the toolbar's; a read sums the cells, so it is
+ * exact once recording has stopped and close to exact while the game is running.
+ * <p>
+ * Recording a move allocates nothing: robot IDs are handed out in sequence, so each robot's distance is a slot of
+ * an array indexed by its ID rather than a map entry under a boxed key.
+ */
+public class GameStatistics {
+
+    public static final int KILL_POINTS = 100;
+    public static final int SURVIVAL_POINTS = 10;
+
+    private final LongAdder score = new LongAdder();
+    private final LongAdder robotsSpawned = new LongAdder();
+    private final LongAdder kills = new LongAdder();
+    private final LongAdder wallsBuilt = new LongAdder();
+    private final LongAdder wallsDamaged = new LongAdder();
+    private final LongAdder wallsDestroyed = new LongAdder();
+    private final LongAdder spawnRejections = new LongAdder();
+    private final LongAdder collisionRejections = new LongAdder();
+    private final LongAdder cellsTravelled = new LongAdder();
+    // Cells travelled by each robot, indexed by robot ID; only written by the game thread, which replaces the array
+    // with a larger copy when an ID does not fit
+    private volatile AtomicLongArray robotDistances = new AtomicLongArray(64);
+
+    /**
+     * Awards the points for a second of the citadel surviving.
+     */
+    public void recordSurvival() {
+        score.add(SURVIVAL_POINTS);
+    }
+
+    /**
+     * Records a robot being destroyed, and awards its points.
+     */
+    public void recordKill() {
+        kills.increment();
+        score.add(KILL_POINTS);
+    }
+
+    public void recordSpawn() {
+        robotsSpawned.increment();
+    }
+
+    /**
+     * Records a robot that could not spawn because its corner was taken.
+     */
+    public void recordSpawnRejection() {
+        spawnRejections.increment();
+    }
+
+    /**
+     * Records a move that could not start because another robot stood in, or had reserved, the cell.
+     */
+    public void recordCollisionRejection() {
+        collisionRejections.increment();
+    }
+
+    /**
+     * Records a robot completing a move of one cell.
+     *
+     * @param robotId The robot's ID.
+     */
+    public void recordMove(int robotId) {
+        cellsTravelled.increment();
+        AtomicLongArray distances = robotDistances;
+        if (robotId >= distances.length()) {
+            AtomicLongArray larger = new AtomicLongArray(Math.max(robotId + 1, distances.length() * 2));
+            for (int i = 0; i < distances.length(); i++) {
+                larger.set(i, distances.get(i));
+            }
+            distances = larger;
+            robotDistances = larger;
+        }
+        distances.incrementAndGet(robotId);
+    }
+
+    public void recordWallBuilt() {
+        wallsBuilt.increment();
+    }
+
+    public void recordWallDamaged() {
+        wallsDamaged.increment();
+    }
+
+    public void recordWallDestroyed() {
+        wallsDestroyed.increment();
+    }
+
+    /**
+     * Replaces the score, such as when a saved game is restored. This is not atomic with points being awarded at
+     * the same time, so it should only be called before the game starts.
+     *
+     * @param newScore The new score.
+     */
+    public void resetScore(long newScore) {
+        score.reset();
+        score.add(newScore);
+    }
+
+    public long getScore() {
+        return score.sum();
+    }
+
+    public long getRobotsSpawned() {
+        return robotsSpawned.sum();
+    }
+
+    public long getKills() {
+        return kills.sum();
+    }
+
+    public long getWallsBuilt() {
+        return wallsBuilt.sum();
+    }
+
+    public long getWallsDamaged() {
+        return wallsDamaged.sum();
+    }
+
+    public long getWallsDestroyed() {
+        return wallsDestroyed.sum();
+    }
+
+    public long getSpawnRejections() {
+        return spawnRejections.sum();
+    }
+
+    public long getCollisionRejections() {
+        return collisionRejections.sum();
+    }
+
+    public long getCellsTravelled() {
+        return cellsTravelled.sum();
+    }
+
+    /**
+     * Gets the number of cells a robot has travelled.
+     *
+     * @param robotId The robot's ID.
+     * @return The number of cells, or 0 if the robot has never moved.
+     */
+    public long getDistanceTravelled(int robotId) {
+        AtomicLongArray distances = robotDistances;
+        return robotId < 0 || robotId >= distances.length() ? 0 : distances.get(robotId);
+    }
+
+    /**
+     * Describes the game's totals, for the end-of-game report.
+     *
+     * @return The report, one total per line.
+     */
+    public String report() {
+        int furthestRobot = -1;
+        long furthestDistance = 0;
+        AtomicLongArray distances = robotDistances;
+        for (int robotId = 0; robotId < distances.length(); robotId++) {
+            long distance = distances.get(robotId);
+            if (distance > furthestDistance) {
+                furthestRobot = robotId;
+                furthestDistance = distance;
+            }
+        }
+        long spawned = getRobotsSpawned();
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Score: %d%n", getScore()))
+                .append(String.format("Robots destroyed: %d of %d spawned%n", getKills(), spawned))
+                .append(String.format("Walls built: %d, damaged: %d, destroyed: %d%n", getWallsBuilt(),
+                        getWallsDamaged(), getWallsDestroyed()))
+                .append(String.format("Spawns rejected (corner taken): %d%n", getSpawnRejections()))
+                .append(String.format("Moves rejected (cell taken): %d%n", getCollisionRejections()))
+                .append(String.format("Distance travelled: %d cells, %.1f per robot", getCellsTravelled(),
+                        spawned == 0 ? 0.0 : (double) getCellsTravelled() / spawned));
+        if (furthestRobot >= 0) {
+            report.append(String.format("%nFurthest robot: %d (%d cells)", furthestRobot, furthestDistance));
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,250 @@
+package edu.curtin.saed.assignment1.gamelogic;
+
+import edu.curtin.saed.assignment1.worldobjects.Wall;
+
+import java.util.Arrays;
+
+/**
+ * A cell-indexed occupancy index of the arena, so that placement checks and wall lookups are O(1) lookups
+ * rather than scans over every robot or wall. Each cell records the ID of the robot standing in it and the
+ * health of the wall built on it (0 when there is none). Robot IDs start at 1, so 0 marks an empty cell.
+ * Which robot may move into a cell is not decided here but by CellClaims, which any thread may use.
+ * <p>
+ * Arenas can be up to 10,000 x 10,000 cells, so the cells are stored sparsely: the grid is split into square
+ * chunks of CHUNK_SIZE x CHUNK_SIZE cells, and a chunk (and the row of the chunk directory holding it) is only
+ * allocated while at least one of its cells is in use. Memory therefore grows with the populated area rather
+ * than with the size of the arena. Reading an unallocated cell never allocates. Up to MAX_SPARE_CHUNKS released
+ * chunks, and as many directory rows, are kept for reuse, so a robot wandering back and forth across a chunk
+ * edge does not allocate a new chunk every time.
+ * <p>
+ * The grid is not thread-safe; it is owned by GameState and only touched on the game thread.
+ */
+public class OccupancyGrid {
+
+    private static final int EMPTY = 0;
+    private static final int CHUNK_SHIFT = 4;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int MAX_SPARE_CHUNKS = 256;
+
+    private final int width;
+    private final int height;
+    private final int chunkColumns;
+    // Chunk directory: chunkRows[chunkY][chunkX], where a row is null until one of its chunks is allocated
+    private final Chunk[][] chunkRows;
+    private final int[] chunksInRow;
+    private int allocatedChunks;
+    // Released chunks, all of whose cells are empty, waiting to be reused
+    private final Chunk[] spareChunks = new Chunk[MAX_SPARE_CHUNKS];
+    private int spareChunkCount;
+    // Released directory rows, all null, waiting to be reused
+    private final Chunk[][] spareRows = new Chunk[MAX_SPARE_CHUNKS][];
+    private int spareRowCount;
+
+    public OccupancyGrid(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.chunkColumns = (width + CHUNK_MASK) >> CHUNK_SHIFT;
+        int chunkRowCount = (height + CHUNK_MASK) >> CHUNK_SHIFT;
+        this.chunkRows = new Chunk[chunkRowCount][];
+        this.chunksInRow = new int[chunkRowCount];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the number of chunks currently allocated, which is proportional to the populated area of the arena.
+     */
+    public int getAllocatedChunkCount() {
+        return allocatedChunks;
+    }
+
+    /**
+     * Checks whether the given cell lies inside the grid.
+     *
+     * @param x The X-coordinate of the cell.
+     * @param y The Y-coordinate of the cell.
+     * @return True if the cell is inside the grid, otherwise false.
+     */
+    public boolean contains(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    /**
+     * Checks whether a robot currently stands in the given cell.
+     *
+     * @param x The X-coordinate of the cell.
+     * @param y The Y-coordinate of the cell.
+     * @return True if a robot stands in the cell, otherwise false.
+     */
+    public boolean hasRobot(int x, int y) {
+        Chunk chunk = findChunk(x, y);
+        return chunk != null && chunk.robotAt[cellInChunk(x, y)] != EMPTY;
+    }
+
+    public void placeRobot(int robotId, int x, int y) {
+        getOrCreateChunk(x, y).setRobotAt(cellInChunk(x, y), robotId);
+    }
+
+    /**
+     * Moves a robot from its current cell into the cell it has arrived in.
+     */
+    public void moveRobot(int robotId, int fromX, int fromY, int toX, int toY) {
+        release(robotId, fromX, fromY);
+        getOrCreateChunk(toX, toY).setRobotAt(cellInChunk(toX, toY), robotId);
+    }
+
+    /**
+     * Removes a robot from the cell it stands in. A cell another robot stands in is left untouched.
+     */
+    public void removeRobot(int robotId, int x, int y) {
+        release(robotId, x, y);
+    }
+
+    /**
+     * Gets the wall built on the given cell.
+     *
+     * @return The wall, or null if there is no wall on the cell.
+     */
+    public Wall getWall(int x, int y) {
+        Chunk chunk = findChunk(x, y);
+        return chunk == null ? null : chunk.wallAt[cellInChunk(x, y)];
+    }
+
+    public boolean hasWall(int x, int y) {
+        return getWallHealth(x, y) != EMPTY;
+    }
+
+    public int getWallHealth(int x, int y) {
+        Chunk chunk = findChunk(x, y);
+        return chunk == null ? EMPTY : chunk.wallHealth[cellInChunk(x, y)];
+    }
+
+    public void placeWall(Wall wall, int x, int y) {
+        Chunk chunk = getOrCreateChunk(x, y);
+        int cell = cellInChunk(x, y);
+        chunk.wallAt[cell] = wall;
+        chunk.setWallHealth(cell, wall.getHealthPoints());
+    }
+
+    public void setWallHealth(int x, int y, int healthPoints) {
+        Chunk chunk = findChunk(x, y);
+        if (chunk != null) {
+            chunk.setWallHealth(cellInChunk(x, y), healthPoints);
+            freeIfEmpty(chunk, x, y);
+        }
+    }
+
+    public void removeWall(int x, int y) {
+        Chunk chunk = findChunk(x, y);
+        if (chunk != null) {
+            int cell = cellInChunk(x, y);
+            chunk.wallAt[cell] = null;
+            chunk.setWallHealth(cell, EMPTY);
+            freeIfEmpty(chunk, x, y);
+        }
+    }
+
+    private void release(int robotId, int x, int y) {
+        Chunk chunk = contains(x, y) ? findChunk(x, y) : null;
+        if (chunk == null) {
+            return;
+        }
+        int cell = cellInChunk(x, y);
+        if (chunk.robotAt[cell] == robotId) {
+            chunk.setRobotAt(cell, EMPTY);
+        }
+        freeIfEmpty(chunk, x, y);
+    }
+
+    private Chunk findChunk(int x, int y) {
+        Chunk[] row = chunkRows[y >> CHUNK_SHIFT];
+        return row == null ? null : row[x >> CHUNK_SHIFT];
+    }
+
+    private Chunk getOrCreateChunk(int x, int y) {
+        int chunkY = y >> CHUNK_SHIFT;
+        int chunkX = x >> CHUNK_SHIFT;
+        Chunk[] row = chunkRows[chunkY];
+        if (row == null) {
+            if (spareRowCount == 0) {
+                row = new Chunk[chunkColumns];
+            } else {
+                row = spareRows[--spareRowCount];
+                spareRows[spareRowCount] = null;
+            }
+            chunkRows[chunkY] = row;
+        }
+        Chunk chunk = row[chunkX];
+        if (chunk == null) {
+            if (spareChunkCount == 0) {
+                chunk = new Chunk();
+            } else {
+                chunk = spareChunks[--spareChunkCount];
+                spareChunks[spareChunkCount] = null;
+            }
+            row[chunkX] = chunk;
+            chunksInRow[chunkY]++;
+            allocatedChunks++;
+        }
+        return chunk;
+    }
+
+    /**
+     * Releases a chunk once none of its cells is in use, and its directory row once the row holds no chunks.
+     */
+    private void freeIfEmpty(Chunk chunk, int x, int y) {
+        if (chunk.population != 0) {
+            return;
+        }
+        int chunkY = y >> CHUNK_SHIFT;
+        chunkRows[chunkY][x >> CHUNK_SHIFT] = null;
+        allocatedChunks--;
+        chunksInRow[chunkY]--;
+        if (chunksInRow[chunkY] == 0) {
+            if (spareRowCount < MAX_SPARE_CHUNKS) {
+                spareRows[spareRowCount++] = chunkRows[chunkY];
+            }
+            chunkRows[chunkY] = null;
+        }
+        if (spareChunkCount < MAX_SPARE_CHUNKS) {
+            // A wall whose health reached zero may still be referenced
+            Arrays.fill(chunk.wallAt, null);
+            spareChunks[spareChunkCount++] = chunk;
+        }
+    }
+
+    private static int cellInChunk(int x, int y) {
+        return ((y & CHUNK_MASK) << CHUNK_SHIFT) | (x & CHUNK_MASK);
+    }
+
+    /**
+     * The cells of one CHUNK_SIZE x CHUNK_SIZE square of the grid, with a count of the entries in use.
+     */
+    private static final class Chunk {
+        private final int[] robotAt = new int[CHUNK_SIZE * CHUNK_SIZE];
+        private final int[] wallHealth = new int[CHUNK_SIZE * CHUNK_SIZE];
+        private final Wall[] wallAt = new Wall[CHUNK_SIZE * CHUNK_SIZE];
+        private int population;
+
+        private void setRobotAt(int cell, int robotId) {
+            population += delta(robotAt[cell], robotId);
+            robotAt[cell] = robotId;
+        }
+
+        private void setWallHealth(int cell, int healthPoints) {
+            population += delta(wallHealth[cell], healthPoints);
+            wallHealth[cell] = healthPoints;
+        }
+
+        private static int delta(int oldValue, int newValue) {
+            return (newValue == EMPTY ? 0 : 1) - (oldValue == EMPTY ? 0 : 1);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package edu.curtin.saed.assignment1.gamelogic;
+
+import java.util.Locale;
+
+/**
+ * How robots choose their way to the citadel. The threaded game reads it from the 'robot.pathing' system property
+ * ('flow' or 'direct'); headless games are given it explicitly, and replay recordings store it, as the two modes
+ * play the same game differently once walls are built.
+ */
+public enum PathingMode {
+    /**
+     * Robots follow a shared flow field that routes around walls, unless the arena has more than
+     * FlowField.MAX_CELLS cells, when they head straight for the citadel.
+     */
+    FLOW,
+
+    /**
+     * Robots head straight for the citadel, one cell along the axis on which it is furthest away.
+     */
+    DIRECT;
+
+    public static final String PROPERTY = "robot.pathing";
+
+    /**
+     * Reads the pathing mode from the 'robot.pathing' system property, defaulting to FLOW.
+     *
+     * @return The pathing mode.
+     */
+    public static PathingMode fromSystemProperties() {
+        return "direct".equalsIgnoreCase(System.getProperty(PROPERTY, "").trim()) ? DIRECT : FLOW;
+    }
+
+    /**
+     * Parses a pathing mode by its name, as written by getName().
+     *
+     * @throws IllegalArgumentException If the name is not a pathing mode.
+     */
+    public static PathingMode parse(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Gets the mode's name as used by the system property and in replay recordings: 'flow' or 'direct'.
+     */
+    public String getName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,351 @@
+package edu.curtin.saed.assignment1.gamelogic;
+
+import edu.curtin.saed.assignment1.worldobjects.Robot;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The robots of a game, stored as parallel arrays of primitives (a struct of arrays) instead of an object per robot.
+ * Each robot occupies a slot, and its ID, movement delay, current cell, reserved next cell and current move are the
+ * entries at that slot of each array: 36 bytes a robot, and a pass over every robot, such as drawing them, reads each
+ * array front to back. Slots of removed robots go on a free list and are reused, so the arrays only grow to the most
+ * robots there have been at once. Free slots have ID 0, as robot IDs start at 1. Robots are found by ID through an
+ * open-addressing hash index, which likewise only grows with the robots there have been at once, not with the IDs
+ * handed out over a game.
+ * <p>
+ * A robot's current cell only changes when its move completes; until then its next cell is the one it reserved.
+ * A robot that is not moving has the same current and next cell.
+ * <p>
+ * The game state's own table is only ever read or written by the game thread. Other threads see the robots through
+ * copies of it, made by copy() and published in the game state's world snapshots, which must never be changed once
+ * made; the snapshot's volatile publication then makes a copy safe to read from any thread.
+ */
+public class RobotTable {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int[] ids;
+    private int[] delays;
+    private int[] cellX;
+    private int[] cellY;
+    private int[] nextX;
+    private int[] nextY;
+    private long[] moveStartNanos;
+    private int[] moveMillis;
+    // Slots in use or freed so far; slots from here on have never been used
+    private int slotCount;
+    private int liveCount;
+    // Stack of freed slots below slotCount, reused most recent first
+    private int[] freeSlots;
+    private int freeCount;
+    private final SlotIndex slotIndex = new SlotIndex();
+
+    public RobotTable() {
+        this(INITIAL_CAPACITY);
+    }
+
+    private RobotTable(int capacity) {
+        ids = new int[capacity];
+        delays = new int[capacity];
+        cellX = new int[capacity];
+        cellY = new int[capacity];
+        nextX = new int[capacity];
+        nextY = new int[capacity];
+        moveStartNanos = new long[capacity];
+        moveMillis = new int[capacity];
+        freeSlots = new int[0];
+    }
+
+    /**
+     * Makes a copy of the table for readers on other threads: just the slots used so far, without the free list or
+     * the index of slots by ID.
+     */
+    public RobotTable copy() {
+        RobotTable copy = new RobotTable(0);
+        copy.ids = Arrays.copyOf(ids, slotCount);
+        copy.delays = Arrays.copyOf(delays, slotCount);
+        copy.cellX = Arrays.copyOf(cellX, slotCount);
+        copy.cellY = Arrays.copyOf(cellY, slotCount);
+        copy.nextX = Arrays.copyOf(nextX, slotCount);
+        copy.nextY = Arrays.copyOf(nextY, slotCount);
+        copy.moveStartNanos = Arrays.copyOf(moveStartNanos, slotCount);
+        copy.moveMillis = Arrays.copyOf(moveMillis, slotCount);
+        copy.slotCount = slotCount;
+        copy.liveCount = liveCount;
+        return copy;
+    }
+
+    /**
+     * Adds a robot standing still in the given cell.
+     *
+     * @return The robot's slot.
+     */
+    public int add(int id, int delay, int x, int y) {
+        int slot;
+        if (freeCount > 0) {
+            freeCount--;
+            slot = freeSlots[freeCount];
+        } else {
+            if (slotCount == ids.length) {
+                grow();
+            }
+            slot = slotCount;
+            slotCount++;
+        }
+        ids[slot] = id;
+        delays[slot] = delay;
+        cellX[slot] = x;
+        cellY[slot] = y;
+        nextX[slot] = x;
+        nextY[slot] = y;
+        moveStartNanos[slot] = 0;
+        moveMillis[slot] = 0;
+        slotIndex.put(id, slot);
+        liveCount++;
+        return slot;
+    }
+
+    private void grow() {
+        int capacity = Math.max(INITIAL_CAPACITY, ids.length * 2);
+        ids = Arrays.copyOf(ids, capacity);
+        delays = Arrays.copyOf(delays, capacity);
+        cellX = Arrays.copyOf(cellX, capacity);
+        cellY = Arrays.copyOf(cellY, capacity);
+        nextX = Arrays.copyOf(nextX, capacity);
+        nextY = Arrays.copyOf(nextY, capacity);
+        moveStartNanos = Arrays.copyOf(moveStartNanos, capacity);
+        moveMillis = Arrays.copyOf(moveMillis, capacity);
+    }
+
+    /**
+     * Removes a robot and frees its slot for the next robot added.
+     */
+    public void remove(int slot) {
+        slotIndex.remove(ids[slot]);
+        ids[slot] = 0;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, Math.max(INITIAL_CAPACITY, freeSlots.length * 2));
+        }
+        freeSlots[freeCount] = slot;
+        freeCount++;
+        liveCount--;
+    }
+
+    /**
+     * Removes every robot.
+     */
+    public void clear() {
+        Arrays.fill(ids, 0, slotCount, 0);
+        slotIndex.clear();
+        slotCount = 0;
+        liveCount = 0;
+        freeCount = 0;
+    }
+
+    /**
+     * Gets the slot of a robot.
+     *
+     * @return The slot, or -1 if the robot is not in the table.
+     */
+    public int slotOf(int id) {
+        return slotIndex.get(id);
+    }
+
+    /**
+     * Starts a move of the robot in a slot from its current cell to the given cell.
+     */
+    public void startMove(int slot, int x, int y, long startNanos, int durationMillis) {
+        nextX[slot] = x;
+        nextY[slot] = y;
+        moveStartNanos[slot] = startNanos;
+        moveMillis[slot] = durationMillis;
+    }
+
+    /**
+     * Moves the robot in a slot into its next cell.
+     */
+    public void completeMove(int slot) {
+        cellX[slot] = nextX[slot];
+        cellY[slot] = nextY[slot];
+    }
+
+    /**
+     * Gets the number of robots in the table.
+     */
+    public int size() {
+        return liveCount;
+    }
+
+    /**
+     * Gets the number of slots to look through for robots: every robot's slot is below it, but not every slot below
+     * it holds a robot.
+     */
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    /**
+     * Checks whether a slot below getSlotCount() holds a robot.
+     */
+    public boolean isRobot(int slot) {
+        return ids[slot] != 0;
+    }
+
+    public int getId(int slot) {
+        return ids[slot];
+    }
+
+    public int getDelay(int slot) {
+        return delays[slot];
+    }
+
+    public int getCellX(int slot) {
+        return cellX[slot];
+    }
+
+    public int getCellY(int slot) {
+        return cellY[slot];
+    }
+
+    public int getNextX(int slot) {
+        return nextX[slot];
+    }
+
+    public int getNextY(int slot) {
+        return nextY[slot];
+    }
+
+    /**
+     * Gets how far along its current move the robot in a slot is at the given time.
+     *
+     * @param nowNanos The time, as a System.nanoTime() value.
+     * @return A fraction from 0 (still in its current cell) to 1 (in its next cell, or not moving).
+     */
+    public double getMoveProgress(int slot, long nowNanos) {
+        if (cellX[slot] == nextX[slot] && cellY[slot] == nextY[slot]) {
+            return 1.0;
+        }
+        long durationNanos = TimeUnit.MILLISECONDS.toNanos(moveMillis[slot]);
+        long elapsedNanos = nowNanos - moveStartNanos[slot];
+        if (elapsedNanos >= durationNanos) {
+            return 1.0;
+        }
+        return elapsedNanos <= 0 ? 0.0 : (double) elapsedNanos / durationNanos;
+    }
+
+    /**
+     * Gets the X-coordinate at which to draw the robot in a slot at the given time, interpolated along its move.
+     */
+    public double getRenderX(int slot, long nowNanos) {
+        return cellX[slot] + (nextX[slot] - cellX[slot]) * getMoveProgress(slot, nowNanos);
+    }
+
+    /**
+     * Gets the Y-coordinate at which to draw the robot in a slot at the given time, interpolated along its move.
+     */
+    public double getRenderY(int slot, long nowNanos) {
+        return cellY[slot] + (nextY[slot] - cellY[slot]) * getMoveProgress(slot, nowNanos);
+    }
+
+    /**
+     * Makes a Robot of the robot in a slot, including its current move, for code that works with Robot objects.
+     * Later changes to the table do not change it.
+     */
+    public Robot getRobot(int slot) {
+        Robot robot = new Robot(ids[slot], delays[slot], cellX[slot], cellY[slot]);
+        robot.startMove(nextX[slot], nextY[slot], moveStartNanos[slot], TimeUnit.MILLISECONDS.toNanos(moveMillis[slot]));
+        return robot;
+    }
+
+    /**
+     * The slot of each robot by ID: a hash table with linear probing, at most half full, whose keys are robot IDs
+     * (0 marking an empty entry). Removing an entry moves later entries of its probe run back into the gap instead
+     * of leaving a tombstone, so lookups never slow down however many robots come and go, and the table only grows
+     * when the robots in it at once outgrow it.
+     */
+    private static final class SlotIndex {
+
+        private static final int INITIAL_CAPACITY = 64;
+
+        private int[] keys = new int[INITIAL_CAPACITY];
+        private int[] slots = new int[INITIAL_CAPACITY];
+        private int size;
+
+        public int get(int id) {
+            if (id <= 0) {
+                return -1;
+            }
+            int mask = keys.length - 1;
+            for (int i = indexOf(id, mask); keys[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == id) {
+                    return slots[i];
+                }
+            }
+            return -1;
+        }
+
+        public void put(int id, int slot) {
+            if ((size + 1) * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+            int mask = keys.length - 1;
+            int i = indexOf(id, mask);
+            while (keys[i] != 0 && keys[i] != id) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == 0) {
+                size++;
+            }
+            keys[i] = id;
+            slots[i] = slot;
+        }
+
+        public void remove(int id) {
+            int mask = keys.length - 1;
+            int gap = indexOf(id, mask);
+            while (keys[gap] != id) {
+                if (keys[gap] == 0) {
+                    return;
+                }
+                gap = (gap + 1) & mask;
+            }
+            // Move back each later entry of the run that may not be probed past the gap, i.e. whose home index is
+            // not cyclically after the gap, until the run ends
+            for (int i = (gap + 1) & mask; keys[i] != 0; i = (i + 1) & mask) {
+                int home = indexOf(keys[i], mask);
+                if (((i - home) & mask) >= ((i - gap) & mask)) {
+                    keys[gap] = keys[i];
+                    slots[gap] = slots[i];
+                    gap = i;
+                }
+            }
+            keys[gap] = 0;
+            size--;
+        }
+
+        public void clear() {
+            Arrays.fill(keys, 0);
+            size = 0;
+        }
+
+        private void resize(int capacity) {
+            int[] oldKeys = keys;
+            int[] oldSlots = slots;
+            keys = new int[capacity];
+            slots = new int[capacity];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    put(oldKeys[i], oldSlots[i]);
+                }
+            }
+        }
+
+        private static int indexOf(int id, int mask) {
+            // Fibonacci hashing spreads the sequential IDs across the table
+            int hash = id * 0x9E3779B9;
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package edu.curtin.saed.assignment1.gamelogic;
+
+import edu.curtin.saed.assignment1.worldobjects.Wall;
+
+import java.util.List;
+
+/**
+ * An immutable, versioned view of the robots and walls, published by the game thread after each command
+ * batch that changed them. Readers get a consistent view of the whole world with a single volatile read,
+ * without queueing a command or blocking the game thread.
+ * <p>
+ * The robots and walls are private copies made for the snapshot and must not be modified. The robots are a copy of
+ * the game's robot table, read slot by slot.
+ */
+public class WorldSnapshot {
+
+    public static final WorldSnapshot EMPTY = new WorldSnapshot(0, new RobotTable(), List.of());
+
+    private final long version;
+    private final RobotTable robots;
+    private final List<Wall> walls;
+    private final long publishedNanos;
+
+    public WorldSnapshot(long version, RobotTable robots, List<Wall> walls) {
+        this.version = version;
+        this.robots = robots;
+        this.walls = walls;
+        this.publishedNanos = System.nanoTime();
+    }
+
+    /**
+     * Gets the version of the world this snapshot shows. Versions increase by one with every published snapshot,
+     * so an unchanged version means an unchanged world.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public RobotTable getRobots() {
+        return robots;
+    }
+
+    public List<Wall> getWalls() {
+        return walls;
+    }
+
+    /**
+     * Gets when the snapshot was created, as a System.nanoTime() value, so readers can tell how stale it is.
+     */
+    public long getPublishedNanos() {
+        return publishedNanos;
+    }
+}
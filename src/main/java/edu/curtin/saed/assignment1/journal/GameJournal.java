@@ -0,0 +1,210 @@
+package edu.curtin.saed.assignment1.journal;
+
+import edu.curtin.saed.assignment1.gamelogic.GameEvent;
+import edu.curtin.saed.assignment1.gamelogic.GameEventSubscriber;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An append-only binary journal of a game session: every event the game state publishes, plus the inputs that
+ * drove the game (wall requests and spawn attempts), each stamped with the time since the journal was opened.
+ * <p>
+ * The journal should be added to the event bus with subscribeLossless(), so that no event is overwritten before
+ * it is journaled. Events are stamped with the time the game published them, and inputs with the time they were
+ * made, so the times order them correctly even though events reach the journal a moment after they happen: an
+ * input may therefore be written just before an event that happened earlier. Should the bus still lose events
+ * (while it is stopping), an EVENTS_LOST record says how many, where they would have been.
+ * <p>
+ * The file starts with a HEADER_SIZE-byte header (magic number, format version, arena size, start time and
+ * record size), followed by fixed-size records of RECORD_SIZE bytes:
+ * <pre>
+ *   int type code, int robot ID, int x, int y, int value, int (reserved), long time in nanoseconds
+ * </pre>
+ * The file is written through memory-mapped segments of SEGMENT_SIZE bytes, so appending a record is a handful
+ * of memory writes and never waits for the disk; the operating system writes the pages back in the background,
+ * and they survive the JVM crashing. The file grows a segment at a time, and the zero-filled space after the
+ * last record marks the end of the journal until it is stopped, which cuts the file back to its last record.
+ * <p>
+ * Records may be appended from any thread.
+ */
+public class GameJournal implements GameEventSubscriber, InputRecorder {
+
+    // The journal is only written when this system property names a file
+    public static final String FILE_PROPERTY = "journal.file";
+
+    public static final int MAGIC = 0x54444A31; // "TDJ1"
+    public static final int FORMAT_VERSION = 2;
+    public static final int HEADER_SIZE = 32;
+    public static final int RECORD_SIZE = 32;
+    public static final long SEGMENT_SIZE = 8L * 1024 * 1024;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final long startNanos;
+    private MappedByteBuffer segment;
+    private long segmentStart;
+    // File offset at which the next record will be written
+    private long position;
+    private long recordCount;
+    private boolean closed;
+    private final Object mutex = new Object();
+
+    /**
+     * Creates a journal, replacing any existing file.
+     *
+     * @param file        The file to write to.
+     * @param arenaWidth  The width of the arena being played on.
+     * @param arenaHeight The height of the arena being played on.
+     * @throws IOException If the file cannot be created or mapped.
+     */
+    public GameJournal(Path file, int arenaWidth, int arenaHeight) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.startNanos = System.nanoTime();
+        mapSegment(0);
+        segment.putInt(0, MAGIC);
+        segment.putInt(4, FORMAT_VERSION);
+        segment.putInt(8, arenaWidth);
+        segment.putInt(12, arenaHeight);
+        segment.putLong(16, System.currentTimeMillis());
+        segment.putInt(24, RECORD_SIZE);
+        this.position = HEADER_SIZE;
+    }
+
+    /**
+     * Opens the journal named by the 'journal.file' system property, if there is one.
+     *
+     * @return The journal, or null if no journal was requested or the file cannot be opened.
+     */
+    public static GameJournal fromSystemProperties(int arenaWidth, int arenaHeight) {
+        String fileName = System.getProperty(FILE_PROPERTY);
+        if (fileName == null || fileName.isBlank()) {
+            return null;
+        }
+        try {
+            GameJournal journal = new GameJournal(Paths.get(fileName), arenaWidth, arenaHeight);
+            System.out.println("Journal: writing to " + journal.file.toAbsolutePath());
+            return journal;
+        } catch (IOException e) {
+            System.err.println("Journal: cannot open " + fileName + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void onEvent(GameEvent event) {
+        append(JournalRecordType.fromEvent(event.getType()), event.getNanoTime(), event.getRobotId(), event.getX(),
+                event.getY(), 0);
+    }
+
+    @Override
+    public void onEventsLost(long count) {
+        append(JournalRecordType.EVENTS_LOST, 0, 0, 0, (int) Math.min(count, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public void wallRequested(int x, int y) {
+        append(JournalRecordType.WALL_REQUESTED, 0, x, y, 0);
+    }
+
+    @Override
+    public void spawnAttempted(int robotId, int x, int y, int delayMillis) {
+        append(JournalRecordType.SPAWN_ATTEMPTED, robotId, x, y, delayMillis);
+    }
+
+    /**
+     * Appends one record, stamped with the current time. Records appended after the journal is stopped are
+     * discarded.
+     */
+    public void append(JournalRecordType type, int robotId, int x, int y, int value) {
+        append(type, System.nanoTime(), robotId, x, y, value);
+    }
+
+    /**
+     * Appends one record of something that happened at the given time. Records appended after the journal is
+     * stopped are discarded.
+     *
+     * @param nanoTime When it happened, as a System.nanoTime() value.
+     */
+    public void append(JournalRecordType type, long nanoTime, int robotId, int x, int y, int value) {
+        synchronized (mutex) {
+            if (closed) {
+                return;
+            }
+            if (position == segmentStart + SEGMENT_SIZE) {
+                try {
+                    mapSegment(position);
+                } catch (IOException e) {
+                    System.err.println("Journal: cannot grow " + file + ", closing it: " + e.getMessage());
+                    stop();
+                    return;
+                }
+            }
+            int offset = (int) (position - segmentStart);
+            segment.putInt(offset + 4, robotId);
+            segment.putInt(offset + 8, x);
+            segment.putInt(offset + 12, y);
+            segment.putInt(offset + 16, value);
+            segment.putLong(offset + 24, nanoTime - startNanos);
+            // The type code goes in last, so a record is never seen without its fields
+            segment.putInt(offset, type.getCode());
+            position += RECORD_SIZE;
+            recordCount++;
+        }
+    }
+
+    public long getRecordCount() {
+        synchronized (mutex) {
+            return recordCount;
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Writes the mapped pages back to the disk, cuts off the unused end of the last segment and closes the file.
+     * Stopping twice has no effect.
+     */
+    public void stop() {
+        synchronized (mutex) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                segment.force();
+                // Nothing touches the mapping again, so the file can shrink under it
+                segment = null;
+                channel.truncate(position);
+                // Also writes back the earlier segments' pages the operating system has not written yet
+                channel.force(true);
+            } catch (IOException e) {
+                System.err.println("Journal: error finishing " + file + ": " + e.getMessage());
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Journal: error closing " + file + ": " + e.getMessage());
+            }
+            System.out.println("Journal: " + recordCount + " records written to " + file);
+        }
+    }
+
+    /**
+     * Maps the segment starting at the given file offset, which extends the file to cover it. The previous segment
+     * is not forced to disk here, so growing the journal never waits for writes: the operating system writes its
+     * pages back in the background, and stop() forces whatever is left of the whole file.
+     */
+    private void mapSegment(long start) throws IOException {
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, start, SEGMENT_SIZE);
+        segmentStart = start;
+    }
+}
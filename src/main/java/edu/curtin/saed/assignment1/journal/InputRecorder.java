@@ -0,0 +1,38 @@
+package edu.curtin.saed.assignment1.journal;
+
+/**
+ * Receives the inputs that drive a game, as opposed to the events the game state produces from them: the
+ * player's wall requests and the spawner's spawn attempts.
+ */
+public interface InputRecorder {
+
+    /**
+     * A recorder that discards every input, used when inputs are not being recorded.
+     */
+    InputRecorder NONE = new InputRecorder() {
+        @Override
+        public void wallRequested(int x, int y) {
+            // Inputs are not recorded
+        }
+
+        @Override
+        public void spawnAttempted(int robotId, int x, int y, int delayMillis) {
+            // Inputs are not recorded
+        }
+    };
+
+    /**
+     * Records that the player clicked a cell to request a wall there.
+     */
+    void wallRequested(int x, int y);
+
+    /**
+     * Records that the spawner tried to spawn a robot, whether or not the corner turned out to be free.
+     *
+     * @param robotId     The ID given to the robot.
+     * @param x           The X-coordinate of the corner.
+     * @param y           The Y-coordinate of the corner.
+     * @param delayMillis The robot's movement period, in milliseconds.
+     */
+    void spawnAttempted(int robotId, int x, int y, int delayMillis);
+}
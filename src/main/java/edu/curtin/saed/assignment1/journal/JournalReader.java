@@ -0,0 +1,173 @@
+package edu.curtin.saed.assignment1.journal;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Reads a journal written by GameJournal. Records are streamed straight out of read-only memory-mapped segments of
+ * the file and handed to a JournalVisitor as primitive fields, so a journal of millions of records is read without
+ * allocating per record.
+ * <p>
+ * The main method is a command-line tool that prints or summarises a journal.
+ */
+public class JournalReader implements Closeable {
+
+    private final Path file;
+    private final FileChannel channel;
+    private final int formatVersion;
+    private final int arenaWidth;
+    private final int arenaHeight;
+    private final long startEpochMillis;
+
+    /**
+     * Opens a journal and reads its header.
+     *
+     * @param file The journal file.
+     * @throws IOException If the file cannot be read, or is not a journal.
+     */
+    public JournalReader(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        if (channel.size() < GameJournal.HEADER_SIZE) {
+            channel.close();
+            throw new IOException(file + " is too short to be a game journal");
+        }
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, GameJournal.HEADER_SIZE);
+        if (header.getInt(0) != GameJournal.MAGIC || header.getInt(24) != GameJournal.RECORD_SIZE) {
+            channel.close();
+            throw new IOException(file + " is not a game journal");
+        }
+        this.formatVersion = header.getInt(4);
+        this.arenaWidth = header.getInt(8);
+        this.arenaHeight = header.getInt(12);
+        this.startEpochMillis = header.getLong(16);
+    }
+
+    public int getFormatVersion() {
+        return formatVersion;
+    }
+
+    public int getArenaWidth() {
+        return arenaWidth;
+    }
+
+    public int getArenaHeight() {
+        return arenaHeight;
+    }
+
+    /**
+     * Gets the wall-clock time at which the journal was opened, in milliseconds since the epoch.
+     */
+    public long getStartEpochMillis() {
+        return startEpochMillis;
+    }
+
+    /**
+     * Streams every record in the journal, in the order they were written, to the given visitor.
+     *
+     * @param visitor The visitor.
+     * @return The number of records read.
+     * @throws IOException If the file cannot be read.
+     */
+    public long forEach(JournalVisitor visitor) throws IOException {
+        long fileSize = channel.size();
+        long position = GameJournal.HEADER_SIZE;
+        long count = 0;
+        // Segments are aligned with the writer's, so records never straddle two of them
+        for (long segmentStart = 0; segmentStart < fileSize; segmentStart += GameJournal.SEGMENT_SIZE) {
+            long segmentSize = Math.min(GameJournal.SEGMENT_SIZE, fileSize - segmentStart);
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, segmentStart, segmentSize);
+            for (int offset = (int) (position - segmentStart); offset + GameJournal.RECORD_SIZE <= segmentSize;
+                 offset += GameJournal.RECORD_SIZE) {
+                int code = segment.getInt(offset);
+                if (code == 0) {
+                    return count; // The zero-filled space after the last record
+                }
+                JournalRecordType type = JournalRecordType.fromCode(code);
+                if (type == null) {
+                    throw new IOException(String.format("Unknown record type %d at offset %d of %s",
+                            code, segmentStart + offset, file));
+                }
+                visitor.visit(type, segment.getLong(offset + 24), segment.getInt(offset + 4),
+                        segment.getInt(offset + 8), segment.getInt(offset + 12), segment.getInt(offset + 16));
+                count++;
+            }
+            position = segmentStart + GameJournal.SEGMENT_SIZE;
+        }
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Prints a journal, or a summary of it.
+     *
+     * @param args The journal file, optionally followed by '--summary' to print only record counts, '--type TYPE'
+     *             to print only records of one type, and/or '--robot ID' to print only records about one robot.
+     * @throws IOException If the journal cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: JournalReader <journal file> [--summary] [--type TYPE] [--robot ID]");
+            System.exit(1);
+        }
+        boolean summaryOnly = false;
+        JournalRecordType typeFilter = null;
+        int robotFilter = -1;
+        int arg = 1;
+        while (arg < args.length) {
+            String option = args[arg];
+            switch (option) {
+                case "--summary" -> summaryOnly = true;
+                case "--type" -> typeFilter = JournalRecordType.valueOf(args[++arg]);
+                case "--robot" -> robotFilter = Integer.parseInt(args[++arg]);
+                default -> throw new IllegalArgumentException("Unknown option: " + option);
+            }
+            arg++;
+        }
+
+        Map<JournalRecordType, Long> counts = new EnumMap<>(JournalRecordType.class);
+        long[] lastTimeNanos = {0};
+        long startNanos = System.nanoTime();
+        long total;
+        try (JournalReader reader = new JournalReader(Paths.get(args[0]));
+             PrintWriter out = new PrintWriter(new BufferedWriter(
+                     new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16))) {
+            out.printf("Journal %s: format %d, %dx%d arena, started %tc%n", args[0], reader.getFormatVersion(),
+                    reader.getArenaWidth(), reader.getArenaHeight(), reader.getStartEpochMillis());
+
+            boolean print = !summaryOnly;
+            JournalRecordType onlyType = typeFilter;
+            int onlyRobot = robotFilter;
+            total = reader.forEach((type, timeNanos, robotId, x, y, value) -> {
+                counts.merge(type, 1L, Long::sum);
+                lastTimeNanos[0] = timeNanos;
+                if (print && (onlyType == null || onlyType == type) && (onlyRobot < 0 || onlyRobot == robotId)) {
+                    out.printf("%12.3f s  %s%n", timeNanos / 1e9, type.describe(robotId, x, y, value));
+                }
+            });
+
+            out.println();
+            for (Map.Entry<JournalRecordType, Long> entry : counts.entrySet()) {
+                out.printf("%-16s %,12d%n", entry.getKey(), entry.getValue());
+            }
+            double readSeconds = (System.nanoTime() - startNanos) / 1e9;
+            out.printf("%,d records covering %.1f s of play, read in %.2f s (%,.0f records/s)%n",
+                    total, lastTimeNanos[0] / 1e9, readSeconds, total / Math.max(readSeconds, 1e-9));
+        }
+    }
+}
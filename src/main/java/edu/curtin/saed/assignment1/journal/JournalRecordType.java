@@ -0,0 +1,69 @@
+package edu.curtin.saed.assignment1.journal;
+
+import edu.curtin.saed.assignment1.gamelogic.GameEventType;
+
+/**
+ * The kinds of record in a game journal: one per game event type, the two kinds of input, and a marker for events
+ * the journal never received. Each is stored as its code, which starts from 1 so that the zero-filled space after
+ * the last record marks the end.
+ */
+public enum JournalRecordType {
+    ROBOT_SPAWNED(1),
+    ROBOT_DESTROYED(2),
+    WALL_BUILT(3),
+    WALL_DAMAGED(4),
+    WALL_DESTROYED(5),
+    WALL_REQUESTED(100),
+    SPAWN_ATTEMPTED(101),
+    EVENTS_LOST(102);
+
+    private static final JournalRecordType[] EVENT_TYPES = {
+            ROBOT_SPAWNED, ROBOT_DESTROYED, WALL_BUILT, WALL_DAMAGED, WALL_DESTROYED};
+
+    private final int code;
+
+    JournalRecordType(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Gets the record type with the given code.
+     *
+     * @return The record type, or null if no record type has that code.
+     */
+    public static JournalRecordType fromCode(int code) {
+        if (code >= 1 && code <= EVENT_TYPES.length) {
+            return EVENT_TYPES[code - 1];
+        }
+        if (code == WALL_REQUESTED.code) {
+            return WALL_REQUESTED;
+        }
+        if (code == EVENTS_LOST.code) {
+            return EVENTS_LOST;
+        }
+        return code == SPAWN_ATTEMPTED.code ? SPAWN_ATTEMPTED : null;
+    }
+
+    /**
+     * Gets the record type that stores game events of the given type.
+     */
+    public static JournalRecordType fromEvent(GameEventType eventType) {
+        return EVENT_TYPES[eventType.ordinal()];
+    }
+
+    /**
+     * Formats a record of this type as text.
+     */
+    public String describe(int robotId, int x, int y, int value) {
+        return switch (this) {
+            case WALL_REQUESTED -> String.format("Player requested a wall at (%d,%d)", x, y);
+            case SPAWN_ATTEMPTED -> String.format("Spawner tried robot %d at (%d,%d) with move delay %d ms", robotId, x, y, value);
+            case EVENTS_LOST -> String.format("%d game events were lost before they reached the journal", value);
+            default -> GameEventType.values()[code - 1].describe(robotId, x, y);
+        };
+    }
+}
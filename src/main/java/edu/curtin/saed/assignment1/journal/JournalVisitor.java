@@ -0,0 +1,21 @@
+package edu.curtin.saed.assignment1.journal;
+
+/**
+ * Receives the records streamed from a game journal, as primitive fields so that reading allocates nothing per
+ * record.
+ */
+@FunctionalInterface
+public interface JournalVisitor {
+    /**
+     * Handles one record.
+     *
+     * @param type      The type of record.
+     * @param timeNanos When the event or input happened, in nanoseconds since the journal was opened.
+     * @param robotId   The ID of the robot involved, or 0 if no robot is involved.
+     * @param x         The X-coordinate of the cell involved.
+     * @param y         The Y-coordinate of the cell involved.
+     * @param value     Extra data: the move delay for spawn attempts, the number of events for lost events,
+     *                  otherwise 0.
+     */
+    void visit(JournalRecordType type, long timeNanos, int robotId, int x, int y, int value);
+}
@@ -0,0 +1,43 @@
+package edu.curtin.saed.assignment1.metrics;
+
+import edu.curtin.saed.assignment1.gamelogic.GameEvent;
+import edu.curtin.saed.assignment1.gamelogic.GameEventSubscriber;
+import edu.curtin.saed.assignment1.gamelogic.GameEventType;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the game events of each type, from the game's event bus, and registers the totals as metrics named
+ * 'events.robotSpawned', 'events.wallBuilt' and so on.
+ */
+public class EventCounter implements GameEventSubscriber {
+
+    private final Map<GameEventType, LongAdder> counts = new EnumMap<>(GameEventType.class);
+
+    public EventCounter(MetricsRegistry registry) {
+        for (GameEventType type : GameEventType.values()) {
+            LongAdder count = new LongAdder();
+            counts.put(type, count);
+            registry.gauge("events." + metricName(type), count::sum);
+        }
+    }
+
+    @Override
+    public void onEvent(GameEvent event) {
+        counts.get(event.getType()).increment();
+    }
+
+    /**
+     * Converts a type such as ROBOT_SPAWNED to a metric name such as robotSpawned.
+     */
+    private static String metricName(GameEventType type) {
+        StringBuilder name = new StringBuilder();
+        for (String word : type.name().toLowerCase(Locale.ROOT).split("_")) {
+            name.append(name.length() == 0 ? word : Character.toUpperCase(word.charAt(0)) + word.substring(1));
+        }
+        return name.toString();
+    }
+}
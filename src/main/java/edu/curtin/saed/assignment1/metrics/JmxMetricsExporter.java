@@ -0,0 +1,144 @@
+package edu.curtin.saed.assignment1.metrics;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Publishes the metrics in a registry as JMX MBeans, one per component, so they can be watched live with
+ * JConsole or VisualVM. The component is the first part of each metric name: 'gameState.queue.depth' becomes
+ * the attribute 'queue.depth' of the MBean 'edu.curtin.saed.assignment1:type=Metrics,name=gameState'. Every
+ * attribute is a read-only long, read from the registry when it is asked for.
+ * <p>
+ * The MBeans list the metrics registered when register() is called.
+ */
+public class JmxMetricsExporter {
+
+    public static final String DOMAIN = "edu.curtin.saed.assignment1";
+
+    private final MetricsRegistry registry;
+    private final MBeanServer server;
+    private final List<ObjectName> registered = new ArrayList<>();
+
+    public JmxMetricsExporter(MetricsRegistry registry) {
+        this(registry, ManagementFactory.getPlatformMBeanServer());
+    }
+
+    public JmxMetricsExporter(MetricsRegistry registry, MBeanServer server) {
+        this.registry = registry;
+        this.server = server;
+    }
+
+    /**
+     * Registers an MBean for each component that has metrics, replacing any registered earlier under the same
+     * names. Components whose MBean cannot be registered are reported and skipped.
+     */
+    public void register() {
+        TreeSet<String> components = new TreeSet<>();
+        for (String name : registry.snapshot().keySet()) {
+            int dot = name.indexOf('.');
+            components.add(dot < 0 ? name : name.substring(0, dot));
+        }
+        for (String component : components) {
+            try {
+                ObjectName objectName = new ObjectName(DOMAIN + ":type=Metrics,name=" + component);
+                if (server.isRegistered(objectName)) {
+                    server.unregisterMBean(objectName);
+                }
+                server.registerMBean(new ComponentMBean(component + "."), objectName);
+                registered.add(objectName);
+            } catch (JMException e) {
+                System.err.println("Metrics: cannot register MBean for " + component + ": " + e.getMessage());
+            }
+        }
+        System.out.println("Metrics: " + registered.size() + " MBeans registered under " + DOMAIN);
+    }
+
+    /**
+     * Unregisters every MBean this exporter registered.
+     */
+    public void unregister() {
+        for (ObjectName objectName : registered) {
+            try {
+                server.unregisterMBean(objectName);
+            } catch (JMException e) {
+                System.err.println("Metrics: cannot unregister " + objectName + ": " + e.getMessage());
+            }
+        }
+        registered.clear();
+    }
+
+    /**
+     * The MBean of one component, exposing its metrics without the component prefix.
+     */
+    private final class ComponentMBean implements DynamicMBean {
+
+        private final String prefix;
+        private final MBeanInfo info;
+
+        private ComponentMBean(String prefix) {
+            this.prefix = prefix;
+            List<MBeanAttributeInfo> attributes = new ArrayList<>();
+            for (String name : registry.snapshot(prefix).keySet()) {
+                attributes.add(new MBeanAttributeInfo(name.substring(prefix.length()), "long", name,
+                        true, false, false));
+            }
+            this.info = new MBeanInfo(ComponentMBean.class.getName(), "Metrics of " + prefix.substring(0, prefix.length() - 1),
+                    attributes.toArray(new MBeanAttributeInfo[0]), null, null, null);
+        }
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            Long value = registry.snapshot(prefix).get(prefix + attribute);
+            if (value == null) {
+                throw new AttributeNotFoundException(attribute);
+            }
+            return value;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException(attribute.getName() + " is read-only");
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            Map<String, Long> values = registry.snapshot(prefix);
+            AttributeList list = new AttributeList();
+            for (String attribute : attributes) {
+                Long value = values.get(prefix + attribute);
+                if (value != null) {
+                    list.add(new Attribute(attribute, value));
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+            throw new ReflectionException(new NoSuchMethodException(actionName), "Metrics MBeans have no operations");
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            return info;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package edu.curtin.saed.assignment1.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of durations in nanoseconds, with one bucket per power of two. Recording is a couple of atomic
+ * increments and never allocates, so it is cheap enough for the game loop and may be called from any thread.
+ * Percentiles are reported as the upper bound of the bucket they fall in, so they are accurate to within a
+ * factor of two.
+ */
+public class LatencyHistogram {
+
+    // Bucket i holds durations d with 2^(i-1) <= d < 2^i; bucket 0 holds zero durations
+    private static final int BUCKET_COUNT = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records one duration. Negative durations (from a clock that went backwards) are recorded as zero.
+     *
+     * @param nanos The duration, in nanoseconds.
+     */
+    public void record(long nanos) {
+        long duration = Math.max(0, nanos);
+        buckets.incrementAndGet(Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(duration)));
+        count.incrementAndGet();
+        totalNanos.addAndGet(duration);
+        if (duration > maxNanos.get()) {
+            maxNanos.accumulateAndGet(duration, Math::max);
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Gets the mean of the recorded durations.
+     *
+     * @return The mean in nanoseconds, or 0 if nothing has been recorded.
+     */
+    public long getMeanNanos() {
+        long recorded = count.get();
+        return recorded == 0 ? 0 : totalNanos.get() / recorded;
+    }
+
+    /**
+     * Gets an upper bound on the given percentile of the recorded durations.
+     *
+     * @param percentile The percentile, from 0 to 100.
+     * @return The upper bound of the bucket holding the percentile, in nanoseconds, or 0 if nothing has been
+     * recorded.
+     */
+    public long getPercentileNanos(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += buckets.get(i);
+        }
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank && seen > 0) {
+                return i == 0 ? 0 : Math.min(1L << i, maxNanos.get());
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count %d, mean %.1f us, p50 %.1f us, p99 %.1f us, max %.1f us", getCount(),
+                getMeanNanos() / 1000.0, getPercentileNanos(50) / 1000.0, getPercentileNanos(99) / 1000.0,
+                getMaxNanos() / 1000.0);
+    }
+}
@@ -0,0 +1,97 @@
+package edu.curtin.saed.assignment1.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+
+/**
+ * An in-process registry of named metrics. Components register gauges (values read on demand, such as a queue's
+ * depth) and histograms (durations they record themselves) under dotted names such as 'gameState.queue.depth';
+ * the first part of the name is the component. Readers, such as the JMX exporter or a performance overlay, take
+ * a snapshot of every value at once.
+ * <p>
+ * Registering replaces any metric of the same name. Any thread may register or read metrics.
+ */
+public class MetricsRegistry {
+
+    private final NavigableMap<String, LongSupplier> gauges = new ConcurrentSkipListMap<>();
+    private final NavigableMap<String, LatencyHistogram> histograms = new ConcurrentSkipListMap<>();
+
+    /**
+     * Registers a gauge, whose value is read each time a snapshot is taken. The supplier may be called from any
+     * thread, so it must only read thread-safe state.
+     *
+     * @param name  The metric name.
+     * @param gauge Supplies the current value.
+     */
+    public void gauge(String name, LongSupplier gauge) {
+        gauges.put(name, gauge);
+    }
+
+    /**
+     * Registers a histogram that its owner records durations in.
+     *
+     * @param name      The metric name.
+     * @param histogram The histogram.
+     */
+    public void histogram(String name, LatencyHistogram histogram) {
+        histograms.put(name, histogram);
+    }
+
+    public LatencyHistogram getHistogram(String name) {
+        return histograms.get(name);
+    }
+
+    /**
+     * Reads the current value of a gauge.
+     *
+     * @param name The metric name.
+     * @return The value, or 0 if no such gauge is registered.
+     */
+    public long readGauge(String name) {
+        LongSupplier gauge = gauges.get(name);
+        return gauge == null ? 0 : gauge.getAsLong();
+    }
+
+    /**
+     * Reads every metric. Each histogram is flattened into its count, mean, 50th and 99th percentiles and
+     * maximum, as '.count', '.meanNanos', '.p50Nanos', '.p99Nanos' and '.maxNanos' under its name.
+     *
+     * @return The metric values by name, in name order.
+     */
+    public Map<String, Long> snapshot() {
+        return snapshot("");
+    }
+
+    /**
+     * Reads every metric whose name starts with the given prefix, as snapshot() does.
+     *
+     * @param prefix The name prefix, such as 'spawner.'.
+     * @return The metric values by name, in name order.
+     */
+    public Map<String, Long> snapshot(String prefix) {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (Map.Entry<String, LongSupplier> gauge : gauges.tailMap(prefix, true).entrySet()) {
+            if (!gauge.getKey().startsWith(prefix)) {
+                break;
+            }
+            values.put(gauge.getKey(), gauge.getValue().getAsLong());
+        }
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.tailMap(prefix, true).entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            String name = entry.getKey();
+            LatencyHistogram histogram = entry.getValue();
+            values.put(name + ".count", histogram.getCount());
+            values.put(name + ".meanNanos", histogram.getMeanNanos());
+            values.put(name + ".p50Nanos", histogram.getPercentileNanos(50));
+            values.put(name + ".p99Nanos", histogram.getPercentileNanos(99));
+            values.put(name + ".maxNanos", histogram.getMaxNanos());
+        }
+        return Collections.unmodifiableMap(values);
+    }
+}
@@ -1,236 +1,104 @@
 package edu.curtin.saed.assignment1.robot;
 
 import edu.curtin.saed.assignment1.gamelogic.GameState;
+import edu.curtin.saed.assignment1.scheduling.TimingWheel;
 import edu.curtin.saed.assignment1.worldobjects.Robot;
-import edu.curtin.saed.assignment1.worldobjects.Wall;
 
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class Movement implements Runnable {
-    private Robot robot;
+
+    // Cleared on the game thread when the robot is destroyed, and read by whichever thread fires the next period
+    private volatile Robot robot;
     private final GameState gameState;
+    private final TimingWheel timers;
+    private final RobotRegistry registry;
+    // The robot's own stream of random numbers, only used by the one move in progress, so no thread contends for it
+    private final SplittableRandom random;
+    // Set from the start of a move until it completes, so a period that fires mid-move is skipped instead of overlapping it
+    private final AtomicBoolean moving = new AtomicBoolean();
+    // Everything a move needs is made here once and reused: the next cell, the game state commands and the timer
+    private final int[] nextCell = new int[2];
+    private final GameState.MoveCommands moveCommands;
+    private final TimingWheel.Timeout arrival;
 
-    public Movement(Robot robot, GameState gameState) {
+    /**
+     * Creates the movement task of a robot.
+     *
+     * @param robot     The robot to move.
+     * @param gameState The game state.
+     * @param timers    Used to complete each move once its duration has elapsed.
+     * @param registry  Told when the robot is destroyed, so that it cancels this task's schedule.
+     * @param random    The robot's own source of randomness, such as a split of the spawner's.
+     */
+    public Movement(Robot robot, GameState gameState, TimingWheel timers, RobotRegistry registry, SplittableRandom random) {
         this.robot = robot;
         this.gameState = gameState;
+        this.timers = timers;
+        this.registry = registry;
+        this.random = random;
+        this.moveCommands = gameState.newMoveCommands(robot, this::moveCompleted);
+        this.arrival = timers.newTimeout(moveCommands::complete);
     }
 
+    /**
+     * Starts one move of the robot, if it is not already moving, and returns straight away: no thread ever waits
+     * for the game thread or for the move's duration. A move is a chain of stages, each started by the one before
+     * on whichever thread completed it:
+     * <ol>
+     *     <li>propose: choose the next cell, on the thread that fired this period;</li>
+     *     <li>collision check and commit: claim the cell in the game state's claim table with a single
+     *     compare-and-set, still on this thread, which fails if another robot stands in or has claimed the cell.
+     *     On success the arrival timer is armed and the game thread is told of the move, which the arena then
+     *     interpolates, without waiting for it;</li>
+     *     <li>arrival: after the move's duration the game thread moves the robot into the cell and releases the
+     *     cell it left, ending the game if it is the citadel's and damaging the wall and destroying the robot if a
+     *     wall stands there.</li>
+     * </ol>
+     * Moves of different robots are therefore resolved in parallel, on as many threads as start them, and only
+     * conflict when they want the same cell. The game thread still runs two commands per move, to record it and to
+     * complete it, so it bounds how many moves a second the game makes however many threads start them. The stages
+     * reuse the same commands and timer for every move, so in steady state a move allocates nothing beyond its
+     * hand-off to the pool that starts it.
+     */
     @Override
     public void run() {
-        if (robot == null) {
+        Robot current = robot;
+        if (current == null) {
+            // The robot was destroyed while this period was already on its way
+            registry.recordZombieFiring();
             return;
         }
-        move();
-    }
-
-    /**
-     * Moves the robot to a new position based on certain conditions and animation-like steps.
-     */
-    private void move() {
-        double nextX = robot.getCurrX();
-        double nextY = robot.getCurrY();
-
-        // Calculate the direction towards the citadel
-        double citadelX = gameState.getCitadelPositionX();
-        double citadelY = gameState.getCitadelPositionY();
-        double directionX = citadelX - robot.getCurrX();
-        double directionY = citadelY - robot.getCurrY();
-
-        // Apply a weight to the direction towards the citadel
-        double moveTowardsCitadelProbability = 0.7;
-
-        // Calculate the next position based on weighted direction
-        double randomValue = Math.random();
-        if (randomValue < moveTowardsCitadelProbability) {
-            // Move towards the citadel either horizontally or vertically
-            if (Math.abs(directionX) > Math.abs(directionY)) {
-                // Move horizontally
-                nextX += (directionX > 0) ? 1 : -1;
-                // Reset Y to prevent diagonal movement
-                nextY = robot.getCurrY();
-            } else {
-                // Move vertically
-                nextY += (directionY > 0) ? 1 : -1;
-                // Reset X to prevent diagonal movement
-                nextX = robot.getCurrX();
-            }
-        } else {
-            // Move randomly
-            double randomX = Math.random() * 2 - 1; // Random value between -1 and 1
-            double randomY = Math.random() * 2 - 1; // Random value between -1 and 1
-
-            // Adjust random values to ensure horizontal or vertical movement
-            if (Math.abs(randomX) > Math.abs(randomY)) {
-                // Random horizontal movement
-                nextX += randomX;
-                // Reset Y to prevent diagonal movement
-                nextY = robot.getCurrY();
-            } else {
-                // Random vertical movement
-                nextY += randomY;
-                // Reset X to prevent diagonal movement
-                nextX = robot.getCurrX();
-            }
-        }
-
-        nextX = Math.round(nextX);
-        nextY = Math.round(nextY);
-
-        if (!isGridBoundaryCheck(nextX, nextY)) {
-
-            boolean areRobotsColliding = false;
-            try {
-                areRobotsColliding = checkRobotCollision(nextX, nextY).get();
-            } catch (InterruptedException | ExecutionException e) {
-                System.err.println(e.getMessage());
-            }
-
-            if (areRobotsColliding) {
-                return;
-            }
-
-            // Calculate the step size for each animation frame
-            double stepX = (nextX - robot.getCurrX()) / 10.0;
-            double stepY = (nextY - robot.getCurrY()) / 10.0;
-
-            robot.setPrevX(Math.round(robot.getCurrX()));
-            robot.setPrevY(Math.round(robot.getCurrY()));
-            robot.setNextX(nextX);
-            robot.setNextY(nextY);
-
-            /* Updates the position of the robot in 40 ms intervals for 10 steps therefore it takes 400ms to move the
-              robot from the current position to the new position. */
-            for (int i = 0; i < 10; i++) {
-                final double newX = robot.getCurrX() + stepX;
-                final double newY = robot.getCurrY() + stepY;
-
-                robot.setCurrX(newX);
-                robot.setCurrY(newY);
-
-                if (i == 9) {
-                    robot.setCurrX(Math.round(newX));
-                    robot.setCurrY(Math.round(newY));
-                }
-
-                try {
-                    Thread.sleep(40);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    return;
-                }
-            }
-
-            checkIsCitadelDestroyed(gameState, robot.getCurrX(), robot.getCurrY());
-            // All checks collision happen after the animation period
-            checkWallCollision(robot.getCurrX(), robot.getCurrY());
-        }
-    }
-
-    /**
-     * Checks if the robot's current position matches the position of the citadel and sets the game over status accordingly.
-     *
-     * @param gameState The GameState object containing game-related data.
-     * @param robotX    The X-coordinate of the robot's current position.
-     * @param robotY    The Y-coordinate of the robot's current position.
-     */
-    private void checkIsCitadelDestroyed(GameState gameState, double robotX, double robotY) {
-        if (robotX == gameState.getCitadelPositionX() && robotY == gameState.getCitadelPositionY()) {
-            gameState.setGameOverStatus();
+        if (!moving.compareAndSet(false, true)) {
+            return;
         }
-    }
+        RobotRules.chooseNextCell(moveCommands.getCellX(), moveCommands.getCellY(), gameState.getCitadelPositionX(),
+                gameState.getCitadelPositionY(), gameState.getFlowField(), random, nextCell);
 
-    /**
-     * Checks if the specified coordinates are within the boundaries of the game grid.
-     *
-     * @param nextX The X-coordinate to be checked.
-     * @param nextY The Y-coordinate to be checked.
-     * @return True if the coordinates are outside the grid boundaries, otherwise false.
-     */
-    private boolean isGridBoundaryCheck(double nextX, double nextY) {
-        boolean isBoundary = false;
-        int gridWidth = 9;
-        if (nextX < 0 || nextX > gridWidth - 1) {
-            isBoundary = true;
-        }
-        int gridHeight = 9;
-        if (nextY < 0 || nextY > gridHeight - 1) {
-            isBoundary = true;
+        if (RobotRules.isGridBoundaryCheck(nextCell[0], nextCell[1], gameState.getGridWidth(), gameState.getGridHeight())) {
+            moving.set(false);
+            return;
         }
-        return isBoundary;
-    }
-
-    /**
-     * Checks for collisions between the robot and walls at the specified coordinates.
-     * If a collision is detected, it interacts with the game state to update or delete the wall
-     * and delete the robot accordingly.
-     *
-     * @param robotNewPosX The new X-coordinate of the robot.
-     * @param robotNewPosY The new Y-coordinate of the robot.
-     */
-    private void checkWallCollision(double robotNewPosX, double robotNewPosY) {
-        try {
-            gameState.asyncGetWalls((walls) -> {
-                for (Wall wall : walls) {
-                    double wallX = wall.getPositionX();
-                    double wallY = wall.getPositionY();
-
-                    if (wallX == robotNewPosX && wallY == robotNewPosY) {
-                        try {
-                            if (wall.isMaxHealth()) {
-                                gameState.updateWall(wall);
-                            } else {
-                                gameState.deleteWall(wall);
-                            }
-                            gameState.deleteRobot(robot);
-                            robot = null;
-                        } catch (InterruptedException e) {
-                            Thread.currentThread().interrupt();
-                        }
-                    }
-                }
-            });
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+        if (moveCommands.reserve(nextCell[0], nextCell[1], RobotRules.MOVE_DURATION_MILLIS)) {
+            // The wait is a timer on the wheel, not a thread
+            timers.arm(arrival, RobotRules.MOVE_DURATION_MILLIS, TimeUnit.MILLISECONDS);
+        } else {
+            moving.set(false);
         }
     }
 
     /**
-     * Asynchronously checks for collisions between the robot and other robots at the specified coordinates.
-     * This method queries the game state for the positions of other robots and determines if the robot's
-     * new position results in a collision with any of them.
-     *
-     * @param robotNewPosX The new X-coordinate of the robot.
-     * @param robotNewPosY The new Y-coordinate of the robot.
-     * @return A CompletableFuture<Boolean> that represents whether a collision has occurred (true) or not (false).
+     * Ends a move and allows the next one to start. A robot destroyed by a wall is removed from the registry,
+     * which cancels this task's schedule, and this movement stops. Called on the game thread.
      */
-    private CompletableFuture<Boolean> checkRobotCollision(double robotNewPosX, double robotNewPosY) {
-        CompletableFuture<Boolean> futureIsColliding = new CompletableFuture<>();
-        try {
-            gameState.asyncGetRobots((robots) -> {
-                boolean isColliding = false;
-                for (Robot otherRobot : robots) {
-                    if (!robot.equals(otherRobot)) {
-                        double otherRobotCurrX = Math.round(otherRobot.getCurrX());
-                        double otherRobotCurrY = Math.round(otherRobot.getCurrY());
-                        double otherRobotNextX = Math.round(otherRobot.getNextX());
-                        double otherRobotNextY = Math.round(otherRobot.getNextY());
-
-                        boolean isAnotherRobotInNewPosition = (robotNewPosX == otherRobotCurrX && robotNewPosY == otherRobotCurrY);
-                        boolean areRobotsMovingToSameNextPosition = (robotNewPosX == otherRobotNextX && robotNewPosY == otherRobotNextY);
-
-                        if (isAnotherRobotInNewPosition || areRobotsMovingToSameNextPosition) {
-                            isColliding = true;
-                            break; // No need to continue checking once a collision is found
-                        }
-                    }
-                }
-                futureIsColliding.complete(isColliding);
-            });
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            futureIsColliding.complete(false);
+    private void moveCompleted(boolean wallHit) {
+        if (wallHit) {
+            Robot current = robot;
+            registry.robotDestroyed(current.getId());
+            robot = null;
         }
-        return futureIsColliding;
+        moving.set(false);
     }
 }
@@ -0,0 +1,33 @@
+package edu.curtin.saed.assignment1.robot;
+
+/**
+ * How the Spawner runs robot movement tasks. The mode can be chosen with the 'movement.threads' system
+ * property ('platform' or 'virtual') to compare the two under the same load.
+ */
+public enum MovementExecutionMode {
+    /**
+     * Each robot's move starts on a scheduled pool with one platform thread per core: the pool fires the robots'
+     * periods itself, or the timing wheel fires them and hands each due move to the pool. Starting a move never
+     * blocks, as the rest of it runs as completion commands on the game thread and timers on the timing wheel, so
+     * a few threads can move any number of robots.
+     */
+    PLATFORM_POOL,
+
+    /**
+     * A single timer thread fires each robot's period and hands the start of the move to a new virtual thread,
+     * which keeps the timer thread free even if a move's first stage is slow. Requires Java 21 or later; on older
+     * runtimes the Spawner falls back to PLATFORM_POOL.
+     */
+    VIRTUAL_THREADS;
+
+    public static final String PROPERTY = "movement.threads";
+
+    /**
+     * Reads the execution mode from the 'movement.threads' system property, defaulting to PLATFORM_POOL.
+     *
+     * @return The execution mode.
+     */
+    public static MovementExecutionMode fromSystemProperties() {
+        return "virtual".equalsIgnoreCase(System.getProperty(PROPERTY, "").trim()) ? VIRTUAL_THREADS : PLATFORM_POOL;
+    }
+}
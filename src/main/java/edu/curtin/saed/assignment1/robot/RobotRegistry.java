@@ -0,0 +1,159 @@
+package edu.curtin.saed.assignment1.robot;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Tracks the lifecycle of every moving robot and owns the handle of its movement schedule, so that a robot's
+ * periodic movement task is cancelled, and purged from the scheduler, as soon as the robot is destroyed.
+ * Without it a destroyed robot's task would keep firing, doing nothing, for the rest of the game.
+ * <p>
+ * A robot is registered before its schedule exists and its handle is attached afterwards, so a robot destroyed
+ * in between still has its schedule cancelled the moment the handle arrives. Any thread may register, attach
+ * and destroy.
+ * <p>
+ * Live robots are those registered and not yet destroyed. Zombie tasks are movement tasks the scheduler still
+ * holds beyond the live robots, which should always be zero; zombie firings count the times a task ran for a
+ * robot that was already dead, which happens at most once per robot, for a period that was already under way
+ * when it was cancelled.
+ */
+public class RobotRegistry {
+
+    private final Map<Integer, Registration> liveRobots = new ConcurrentHashMap<>();
+    private final LongSupplier scheduledTasks;
+    private final LongAdder registeredCount = new LongAdder();
+    private final LongAdder destroyedCount = new LongAdder();
+    private final LongAdder zombieFirings = new LongAdder();
+
+    /**
+     * Creates a registry.
+     *
+     * @param scheduledTasks Supplies the number of movement tasks the scheduler currently holds.
+     */
+    public RobotRegistry(LongSupplier scheduledTasks) {
+        this.scheduledTasks = scheduledTasks;
+    }
+
+    /**
+     * Registers a robot that is about to start moving.
+     *
+     * @param robotId The robot's ID.
+     * @return The registration, to attach the robot's schedule to once it exists.
+     */
+    public Registration register(int robotId) {
+        Registration registration = new Registration(robotId);
+        liveRobots.put(robotId, registration);
+        registeredCount.increment();
+        return registration;
+    }
+
+    /**
+     * Records that a robot was destroyed, and cancels its movement schedule.
+     *
+     * @param robotId The robot's ID.
+     */
+    public void robotDestroyed(int robotId) {
+        Registration registration = liveRobots.get(robotId);
+        if (registration == null) {
+            return;
+        }
+        // Cancel before the robot stops counting as live, so its task is never counted as a zombie on the way
+        registration.destroy();
+        if (liveRobots.remove(robotId, registration)) {
+            destroyedCount.increment();
+        }
+    }
+
+    /**
+     * Records a movement task running for a robot that was already destroyed.
+     */
+    public void recordZombieFiring() {
+        zombieFirings.increment();
+    }
+
+    public boolean isLive(int robotId) {
+        return liveRobots.containsKey(robotId);
+    }
+
+    /**
+     * Gets the number of movement tasks the scheduler holds, for live robots and zombies alike.
+     */
+    public long getScheduledCount() {
+        return scheduledTasks.getAsLong();
+    }
+
+    public int getLiveCount() {
+        return liveRobots.size();
+    }
+
+    /**
+     * Gets the number of movement tasks the scheduler holds for robots that are no longer live.
+     */
+    public long getZombieCount() {
+        return Math.max(0, scheduledTasks.getAsLong() - liveRobots.size());
+    }
+
+    public long getZombieFirings() {
+        return zombieFirings.sum();
+    }
+
+    public long getRegisteredCount() {
+        return registeredCount.sum();
+    }
+
+    public long getDestroyedCount() {
+        return destroyedCount.sum();
+    }
+
+    /**
+     * One robot's entry in the registry, which holds the means of cancelling its movement schedule.
+     */
+    public static final class Registration {
+
+        private final int robotId;
+        private final AtomicReference<Runnable> cancelSchedule = new AtomicReference<>();
+        private final AtomicBoolean destroyed = new AtomicBoolean();
+
+        private Registration(int robotId) {
+            this.robotId = robotId;
+        }
+
+        public int getRobotId() {
+            return robotId;
+        }
+
+        /**
+         * Attaches the robot's movement schedule, cancelling it straight away if the robot has already been
+         * destroyed.
+         *
+         * @param cancel Cancels the schedule, and removes it from the scheduler.
+         */
+        public void attachSchedule(Runnable cancel) {
+            cancelSchedule.set(cancel);
+            if (destroyed.get()) {
+                cancelSchedule();
+            }
+        }
+
+        private void destroy() {
+            if (destroyed.compareAndSet(false, true)) {
+                cancelSchedule();
+            }
+        }
+
+        /**
+         * Cancels the schedule if it is attached. Whichever of attachSchedule() and destroy() comes second gets
+         * here with the schedule attached, and taking it out first means it is only cancelled once.
+         */
+        private void cancelSchedule() {
+            Runnable cancel = cancelSchedule.getAndSet(null);
+            if (cancel != null) {
+                cancel.run();
+            }
+        }
+    }
+}
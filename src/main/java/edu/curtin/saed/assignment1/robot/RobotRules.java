@@ -0,0 +1,175 @@
+package edu.curtin.saed.assignment1.robot;
+
+import edu.curtin.saed.assignment1.gamelogic.FlowField;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * The timing and decision rules that govern how robots are spawned and how they move. They are shared by the
+ * threaded Spawner and Movement classes and by the headless simulation, so both play by the same rules.
+ */
+public final class RobotRules {
+
+    public static final int SPAWN_INTERVAL_MILLIS = 1500;
+    public static final int MAX_INITIAL_DELAY_MILLIS = 1500;
+    public static final int MIN_MOVE_DELAY_MILLIS = 500;
+    public static final int MAX_MOVE_DELAY_MILLIS = 2000;
+    // How long a robot takes to travel from one cell to the next
+    public static final int MOVE_DURATION_MILLIS = 400;
+
+    private static final double MOVE_TOWARDS_CITADEL_PROBABILITY = 0.7;
+
+    private RobotRules() {
+    }
+
+    /**
+     * Gets the position of one of the four corners of the grid.
+     *
+     * @param corner     The corner: 1 is top-right, 2 is bottom-left, 3 is bottom-right, anything else top-left.
+     * @param gridWidth  The width of the grid.
+     * @param gridHeight The height of the grid.
+     * @return The {x, y} position of the corner.
+     */
+    public static int[] cornerPosition(int corner, int gridWidth, int gridHeight) {
+        return switch (corner) {
+            // Top-right corner
+            case 1 -> new int[]{gridWidth - 1, 0};
+            // Bottom-left corner
+            case 2 -> new int[]{0, gridHeight - 1};
+            // Bottom-right corner
+            case 3 -> new int[]{gridWidth - 1, gridHeight - 1};
+            // Top-left corner
+            default -> new int[]{0, 0};
+        };
+    }
+
+    /**
+     * Randomly selects one of the four corners of the grid.
+     */
+    public static int chooseCorner(RandomGenerator random) {
+        return random.nextInt(4);
+    }
+
+    /**
+     * Chooses a random delay value for a newly spawned robot's movement. The delay value determines how frequently
+     * the robot will move. It generates a random number between 500 and 2000 milliseconds (inclusive).
+     *
+     * @return the randomly chosen delay value in milliseconds.
+     */
+    public static int chooseDelay(RandomGenerator random) {
+        // 1501 to include 2000, and then add 500 to start from 500
+        return random.nextInt(MAX_MOVE_DELAY_MILLIS - MIN_MOVE_DELAY_MILLIS + 1) + MIN_MOVE_DELAY_MILLIS;
+    }
+
+    /**
+     * Chooses how long a newly spawned robot waits before its first move.
+     */
+    public static int chooseInitialDelay(RandomGenerator random) {
+        return random.nextInt(MAX_INITIAL_DELAY_MILLIS);
+    }
+
+    /**
+     * Chooses the next cell for a robot. Most of the time the robot moves one cell towards the citadel along the
+     * axis on which it is furthest away; otherwise it moves randomly, horizontally or vertically. The result may
+     * be the robot's own cell, or lie outside the grid.
+     *
+     * @param currX    The X-coordinate of the robot's current cell.
+     * @param currY    The Y-coordinate of the robot's current cell.
+     * @param citadelX The X-coordinate of the citadel.
+     * @param citadelY The Y-coordinate of the citadel.
+     * @param random   The source of randomness.
+     * @return The {x, y} position of the next cell.
+     */
+    public static int[] chooseNextCell(double currX, double currY, double citadelX, double citadelY, RandomGenerator random) {
+        return chooseNextCell(currX, currY, citadelX, citadelY, null, random);
+    }
+
+    /**
+     * Chooses the next cell for a robot, as chooseNextCell() without a flow field does, except that when the robot
+     * moves towards the citadel it follows the flow field's route around the walls. The same random numbers are
+     * drawn either way.
+     *
+     * @param currX     The X-coordinate of the robot's current cell.
+     * @param currY     The Y-coordinate of the robot's current cell.
+     * @param citadelX  The X-coordinate of the citadel.
+     * @param citadelY  The Y-coordinate of the citadel.
+     * @param flowField The field to follow, or null to head straight for the citadel.
+     * @param random    The source of randomness.
+     * @return The {x, y} position of the next cell.
+     */
+    public static int[] chooseNextCell(double currX, double currY, double citadelX, double citadelY, FlowField flowField,
+                                       RandomGenerator random) {
+        int[] nextCell = new int[2];
+        chooseNextCell(currX, currY, citadelX, citadelY, flowField, random, nextCell);
+        return nextCell;
+    }
+
+    /**
+     * Chooses the next cell for a robot, as chooseNextCell() with a flow field does, but writes it into an array
+     * the caller owns instead of returning a new one, so a robot that reuses its array moves without allocating.
+     *
+     * @param currX     The X-coordinate of the robot's current cell.
+     * @param currY     The Y-coordinate of the robot's current cell.
+     * @param citadelX  The X-coordinate of the citadel.
+     * @param citadelY  The Y-coordinate of the citadel.
+     * @param flowField The field to follow, or null to head straight for the citadel.
+     * @param random    The source of randomness.
+     * @param nextCell  Receives the {x, y} position of the next cell.
+     */
+    public static void chooseNextCell(double currX, double currY, double citadelX, double citadelY, FlowField flowField,
+                                      RandomGenerator random, int[] nextCell) {
+        double nextX = currX;
+        double nextY = currY;
+
+        // Calculate the direction towards the citadel
+        double directionX = citadelX - currX;
+        double directionY = citadelY - currY;
+
+        // Calculate the next position based on weighted direction
+        if (random.nextDouble() < MOVE_TOWARDS_CITADEL_PROBABILITY) {
+            // Move towards the citadel either horizontally or vertically
+            if (flowField != null) {
+                // Follow the shared route around the walls, an O(1) lookup
+                int x = (int) Math.round(currX);
+                int y = (int) Math.round(currY);
+                nextCell[0] = flowField.getNextX(x, y);
+                nextCell[1] = flowField.getNextY(x, y);
+                return;
+            } else if (Math.abs(directionX) > Math.abs(directionY)) {
+                // Move horizontally
+                nextX += (directionX > 0) ? 1 : -1;
+            } else {
+                // Move vertically
+                nextY += (directionY > 0) ? 1 : -1;
+            }
+        } else {
+            // Move randomly
+            double randomX = random.nextDouble() * 2 - 1; // Random value between -1 and 1
+            double randomY = random.nextDouble() * 2 - 1; // Random value between -1 and 1
+
+            // Adjust random values to ensure horizontal or vertical movement
+            if (Math.abs(randomX) > Math.abs(randomY)) {
+                // Random horizontal movement
+                nextX += randomX;
+            } else {
+                // Random vertical movement
+                nextY += randomY;
+            }
+        }
+        nextCell[0] = (int) Math.round(nextX);
+        nextCell[1] = (int) Math.round(nextY);
+    }
+
+    /**
+     * Checks if the specified coordinates are within the boundaries of the game grid.
+     *
+     * @param nextX      The X-coordinate to be checked.
+     * @param nextY      The Y-coordinate to be checked.
+     * @param gridWidth  The width of the grid.
+     * @param gridHeight The height of the grid.
+     * @return True if the coordinates are outside the grid boundaries, otherwise false.
+     */
+    public static boolean isGridBoundaryCheck(int nextX, int nextY, int gridWidth, int gridHeight) {
+        return nextX < 0 || nextX > gridWidth - 1 || nextY < 0 || nextY > gridHeight - 1;
+    }
+}
@@ -1,25 +1,171 @@
 package edu.curtin.saed.assignment1.robot;
 
 import edu.curtin.saed.assignment1.gamelogic.GameState;
+import edu.curtin.saed.assignment1.journal.InputRecorder;
+import edu.curtin.saed.assignment1.metrics.MetricsRegistry;
+import edu.curtin.saed.assignment1.scheduling.TimingWheel;
 import edu.curtin.saed.assignment1.worldobjects.Robot;
 
+import java.util.List;
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 public class Spawner {
     private final GameState gameState;
-    private static int robotId = 0;
+    // Taken by the spawner thread, or set by resume() before it starts; given back by the game thread when a spawn
+    // is rejected, but only if no later robot has taken a number since, so that no two robots share an ID
+    private static final AtomicInteger ROBOT_ID = new AtomicInteger();
 
-    private final ScheduledExecutorService executorService;
+    // Fires each robot's movement period when they are not on the timing wheel; in the platform mode every move
+    // starts on its threads
+    private final ScheduledThreadPoolExecutor executorService;
+    // Starts a move once the executor fires its period: directly on the pool thread that fired it, or on a new
+    // virtual thread
+    private final Executor movementExecutor;
+    // Starts a move once the timing wheel fires its period: on the executor's pool, or on a new virtual thread, so
+    // the moves due in a tick start in parallel instead of one by one on the wheel's thread
+    private final Executor wheelMovementExecutor;
+    // Times the end of each move and, unless the executor does, fires the robots' movement periods in batches, one
+    // per tick; its own thread runs these tasks, which only hand work on and never block
+    private final TimingWheel timingWheel;
+    private final boolean periodsOnWheel;
+    // Split into a stream of random numbers of each robot's own; only used by the spawner thread, or by resume()
+    // before the spawner starts
+    private final SplittableRandom movementRandom = new SplittableRandom();
+    // Owns every moving robot's schedule and cancels it when the robot is destroyed
+    private final RobotRegistry robotRegistry;
     private Thread thread;
+    private volatile InputRecorder inputRecorder = InputRecorder.NONE;
+    // Movement periods that fired a whole period or more late, because the scheduler's threads were busy
+    private final LongAdder missedPeriods = new LongAdder();
 
 
     public Spawner(GameState gameState) {
+        this(gameState, MovementExecutionMode.fromSystemProperties(), MovementScheduling.fromSystemProperties());
+    }
+
+    public Spawner(GameState gameState, MovementExecutionMode executionMode) {
+        this(gameState, executionMode, MovementScheduling.fromSystemProperties());
+    }
+
+    public Spawner(GameState gameState, MovementExecutionMode executionMode, MovementScheduling scheduling) {
+        this(gameState, executionMode, scheduling, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a spawner whose platform thread pool has the given number of threads, such as to measure how
+     * robot movement scales with them. The virtual thread mode ignores it.
+     *
+     * @param poolSize The number of platform threads that start robots' moves.
+     */
+    public Spawner(GameState gameState, MovementExecutionMode executionMode, MovementScheduling scheduling, int poolSize) {
         this.gameState = gameState;
-        int coreCount = Runtime.getRuntime().availableProcessors();
-        this.executorService = Executors.newScheduledThreadPool(coreCount);
+        ExecutorService virtualThreadExecutor = executionMode == MovementExecutionMode.VIRTUAL_THREADS ? createVirtualThreadExecutor() : null;
+        if (virtualThreadExecutor == null) {
+            this.executorService = new ScheduledThreadPoolExecutor(poolSize);
+            this.movementExecutor = Runnable::run;
+            this.wheelMovementExecutor = executorService;
+            System.out.println("Robot movement: platform thread pool of " + poolSize);
+        } else {
+            this.executorService = new ScheduledThreadPoolExecutor(1, runnable -> new Thread(runnable, "movement-timer-thread"));
+            this.movementExecutor = virtualThreadExecutor;
+            this.wheelMovementExecutor = virtualThreadExecutor;
+            System.out.println("Robot movement: virtual thread per move");
+        }
+        long tickMillis = TimingWheel.tickMillisFromSystemProperties();
+        this.timingWheel = new TimingWheel(tickMillis, TimeUnit.MILLISECONDS, Runnable::run);
+        this.periodsOnWheel = scheduling == MovementScheduling.TIMING_WHEEL;
+        if (periodsOnWheel) {
+            System.out.println("Robot movement scheduling: timing wheel, " + tickMillis + " ms tick");
+        } else {
+            System.out.println("Robot movement scheduling: scheduled executor");
+        }
+        // Cancelled movement tasks leave the executor's queue at once, instead of when they would next have fired
+        executorService.setRemoveOnCancelPolicy(true);
+        this.robotRegistry = new RobotRegistry(this::getScheduledMovementCount);
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task. Virtual threads only exist from Java 21,
+     * while the game builds against Java 17, so the factory method is looked up at runtime.
+     *
+     * @return The executor, or null if this runtime does not support virtual threads.
+     */
+    private static ExecutorService createVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            System.err.println("Virtual threads need Java 21 or later, using the platform thread pool: " + e);
+            return null;
+        }
+    }
+
+    public RobotRegistry getRobotRegistry() {
+        return robotRegistry;
+    }
+
+    /**
+     * Counts the robots' periodic movement tasks the scheduler holds, including any zombies. The executor's queue
+     * also holds move completions, which are not periodic; counting its queue is O(n), which is fine for metrics.
+     */
+    private long getScheduledMovementCount() {
+        if (periodsOnWheel) {
+            return timingWheel.getPeriodicCount();
+        }
+        long periodic = 0;
+        for (Runnable task : executorService.getQueue()) {
+            if (task instanceof RunnableScheduledFuture<?> future && future.isPeriodic()) {
+                periodic++;
+            }
+        }
+        return periodic;
+    }
+
+    /**
+     * Sets where spawn attempts are recorded, such as a game journal.
+     */
+    public void setInputRecorder(InputRecorder inputRecorder) {
+        this.inputRecorder = inputRecorder;
+    }
+
+    /**
+     * Registers the spawner's metrics under 'spawner.': the movement scheduler's active threads, queued tasks
+     * (the robots' periodic movement tasks, unless the timing wheel holds them) and completed tasks, the timing
+     * wheel's scheduled movement periods and arrivals, fired tasks and ticks, the number of movement periods
+     * missed, the ID of the last robot spawned, and the robot registry's live robots, scheduled movement tasks,
+     * zombie movement tasks, zombie firings and destroyed robots.
+     *
+     * @param registry The registry to add the metrics to.
+     */
+    public void registerMetrics(MetricsRegistry registry) {
+        registry.gauge("spawner.executor.active", executorService::getActiveCount);
+        registry.gauge("spawner.executor.queued", () -> executorService.getQueue().size());
+        registry.gauge("spawner.executor.completed", executorService::getCompletedTaskCount);
+        registry.gauge("spawner.executor.poolSize", executorService::getPoolSize);
+        registry.gauge("spawner.wheel.active", timingWheel::getActiveCount);
+        registry.gauge("spawner.wheel.fired", timingWheel::getFiredCount);
+        registry.gauge("spawner.wheel.ticks", timingWheel::getProcessedTicks);
+        if (periodsOnWheel) {
+            registry.gauge("spawner.missedPeriods", timingWheel::getMissedPeriods);
+        } else {
+            registry.gauge("spawner.missedPeriods", missedPeriods::sum);
+        }
+        registry.gauge("spawner.lastRobotId", Spawner::getLastRobotId);
+        registry.gauge("spawner.robots.live", robotRegistry::getLiveCount);
+        registry.gauge("spawner.robots.scheduled", robotRegistry::getScheduledCount);
+        registry.gauge("spawner.robots.zombieTasks", robotRegistry::getZombieCount);
+        registry.gauge("spawner.robots.zombieFirings", robotRegistry::getZombieFirings);
+        registry.gauge("spawner.robots.destroyed", robotRegistry::getDestroyedCount);
     }
 
     /**
@@ -31,13 +177,14 @@ public class Spawner {
             while (true) {
                 try {
                     spawnRobot();
-                    Thread.sleep(1500); // Sleep for 1500 milliseconds
+                    Thread.sleep(RobotRules.SPAWN_INTERVAL_MILLIS); // Sleep for 1500 milliseconds
                 } catch (InterruptedException e) {
                     System.out.println(Thread.currentThread().getName() + "" + ": SHUTDOWN");
                     break;
                 }
             }
         };
+        timingWheel.start();
         thread = new Thread(spawnerTask, "spawner-thread");
         thread.start();
 
@@ -64,10 +211,97 @@ public class Spawner {
      * Stops the associated thread pool by initiating an orderly shutdown and logs a message indicating the shutdown.
      */
     private void stopThreadPool() {
+        timingWheel.stop();
         executorService.shutdown();
+        if (movementExecutor instanceof ExecutorService virtualThreadExecutor) {
+            virtualThreadExecutor.shutdown();
+        }
         System.out.println("Thread Pool: SHUTDOWN");
     }
 
+    /**
+     * Schedules a robot's movement task to run every period, starting after the initial delay: on the timing wheel,
+     * which counts its own missed periods, or as a fixed-rate task on the executor. The robot registry owns the
+     * schedule and cancels it when the robot is destroyed.
+     *
+     * @param random The robot's own source of randomness, split from movementRandom.
+     */
+    private void startMoving(Robot robot, int initialDelay, int period, SplittableRandom random) {
+        RobotRegistry.Registration registration = robotRegistry.register(robot.getId());
+        Movement movement = new Movement(robot, gameState, timingWheel, robotRegistry, random);
+        if (periodsOnWheel) {
+            Runnable startMove = () -> wheelMovementExecutor.execute(movement);
+            TimingWheel.Timeout timeout = timingWheel.scheduleAtFixedRate(startMove, initialDelay, period, TimeUnit.MILLISECONDS);
+            registration.attachSchedule(timeout::cancel);
+            return;
+        }
+        ScheduledFuture<?> future = executorService.scheduleAtFixedRate(new MovementPeriod(movement, period), initialDelay,
+                period, TimeUnit.MILLISECONDS);
+        registration.attachSchedule(() -> future.cancel(false));
+    }
+
+    /**
+     * Fires one period of a robot's movement, counting the periods missed when it fires late. A fixed-rate task
+     * that falls behind runs its late periods back to back, so lateness of a whole period or more means that many
+     * periods could not fire on time. Those periods are counted by the first late run alone: the runs that catch up
+     * on them are late too, but were already counted. The scheduler never runs the same task concurrently, so the
+     * due times need no synchronisation.
+     */
+    private final class MovementPeriod implements Runnable {
+
+        private final Movement movement;
+        private final long periodNanos;
+        private long dueNanos;
+        // Periods due before this were already counted as missed by an earlier late run
+        private long countedUntilNanos;
+
+        private MovementPeriod(Movement movement, int periodMillis) {
+            this.movement = movement;
+            this.periodNanos = TimeUnit.MILLISECONDS.toNanos(periodMillis);
+        }
+
+        @Override
+        public void run() {
+            long now = System.nanoTime();
+            if (dueNanos == 0) {
+                dueNanos = now; // The first period defines the schedule
+            } else if (now - dueNanos >= periodNanos && dueNanos >= countedUntilNanos) {
+                long missed = (now - dueNanos) / periodNanos;
+                missedPeriods.add(missed);
+                countedUntilNanos = dueNanos + (missed + 1) * periodNanos;
+            }
+            dueNanos += periodNanos;
+            movementExecutor.execute(movement);
+        }
+    }
+
+    /**
+     * Re-arms the movement schedules of robots restored from a saved game, and continues numbering new robots after
+     * the last ID the saved game used. Each robot moves at its own saved delay, after a fresh random initial delay.
+     * The robots must be the same objects that were restored into the game state.
+     *
+     * @param robots      The restored robots.
+     * @param lastRobotId The ID of the last robot created in the saved game.
+     */
+    public void resume(List<Robot> robots, int lastRobotId) {
+        setLastRobotId(lastRobotId);
+        Random random = ThreadLocalRandom.current();
+        for (Robot robot : robots) {
+            startMoving(robot, RobotRules.chooseInitialDelay(random), robot.getDelay(), movementRandom.split());
+        }
+    }
+
+    /**
+     * Gets the ID of the last robot created.
+     */
+    public static int getLastRobotId() {
+        return ROBOT_ID.get();
+    }
+
+    private static void setLastRobotId(int lastRobotId) {
+        ROBOT_ID.set(lastRobotId);
+    }
+
     /**
      * Spawns a new robot in one of the four corners of the grid. The robot's initial position is determined randomly
      * among the corners. Each spawned robot is assigned a unique ID and a random movement delay. The robot is added to
@@ -76,80 +310,34 @@ public class Spawner {
      * @throws InterruptedException if the operation is interrupted while adding the robot or scheduling its movement.
      */
     private void spawnRobot() throws InterruptedException {
-        Random random = new Random();
-        int corner = random.nextInt(4); // Randomly select one of the four corners
-
-        double x, y;
-        switch (corner) {
-            // Top-left corner
-            // Top-right corner
-            case 1 -> {
-                x = 8;
-                y = 0;
-            }
-            // Bottom-left corner
-            case 2 -> {
-                x = 0;
-                y = 8;
-            }
-            // Bottom-right corner
-            case 3 -> {
-                x = 8;
-                y = 8;
-            }
-            default -> {
-                x = 0;
-                y = 0;
-            }
-        }
-
+        Random random = ThreadLocalRandom.current();
+        int[] corner = RobotRules.cornerPosition(RobotRules.chooseCorner(random), gameState.getGridWidth(), gameState.getGridHeight());
+        double x = corner[0];
+        double y = corner[1];
 
-        robotId += 1;
-        int delay = chooseDelay();
+        int robotId = ROBOT_ID.incrementAndGet();
+        int delay = RobotRules.chooseDelay(random);
 
         // FOR EXECUTOR SERVER
-        int initialDelay = new Random().nextInt(1500);
+        int initialDelay = RobotRules.chooseInitialDelay(random);
         int period = delay;
 
+        SplittableRandom robotRandom = movementRandom.split();
         Robot newRobot = new Robot(robotId, delay, x, y);
+        inputRecorder.spawnAttempted(robotId, corner[0], corner[1], delay);
 
         try {
-            gameState.asyncGetRobots((robots) -> {
-                boolean spawn = true;
-
-                for (Robot robot : robots) {
-                    // A bot is already in this location, so don't spawn and wait
-                    if (Math.round(robot.getCurrX()) == Math.round(newRobot.getCurrX()) && Math.round(robot.getCurrY()) == Math.round(newRobot.getCurrY())) {
-                        spawn = false;
-                        break;
-                    }
-                }
-
-                if (spawn) {
-                    try {
-                        gameState.addRobot(newRobot);
-                        executorService.scheduleAtFixedRate(new Movement(newRobot, gameState), initialDelay, period, TimeUnit.MILLISECONDS);
-                    } catch (InterruptedException e) {
-                        System.err.println(e.getMessage());
-                    }
+            // The game state only spawns the robot if no bot is already in this location, otherwise wait
+            gameState.asyncSpawnRobot(newRobot, (spawned) -> {
+                if (spawned) {
+                    startMoving(newRobot, initialDelay, period, robotRandom);
                 } else {
-                    robotId -= 1;
+                    ROBOT_ID.compareAndSet(robotId, robotId - 1);
                 }
             });
         } catch (InterruptedException e) {
-            System.err.println(e.getMessage());
+            // Keep the interrupt, so that the spawner thread still stops when it sleeps next
+            Thread.currentThread().interrupt();
         }
     }
-
-    /**
-     * Chooses a random delay value for a newly spawned robot's movement. The delay value determines how frequently
-     * the robot will move. It generates a random number between 500 and 2000 milliseconds (inclusive).
-     *
-     * @return the randomly chosen delay value in milliseconds.
-     */
-    private int chooseDelay() {
-        Random random = new Random();
-        // Generate a random number between 500 and 2000 (inclusive)
-        return random.nextInt(1501) + 500; // 1501 to include 2000, and then add 500 to start from 500
-    }
-}
\ No newline at end of file
+}
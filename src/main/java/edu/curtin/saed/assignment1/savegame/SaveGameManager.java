@@ -0,0 +1,80 @@
+package edu.curtin.saed.assignment1.savegame;
+
+import edu.curtin.saed.assignment1.gamelogic.GameSave;
+import edu.curtin.saed.assignment1.gamelogic.GameState;
+import edu.curtin.saed.assignment1.robot.Spawner;
+import edu.curtin.saed.assignment1.wall.WallBuilder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Saves a running game to a file, and restores a saved game into a new one. A save covers the game state, the walls
+ * waiting in the wall builder's queue and the spawner's robot ID counter.
+ */
+public class SaveGameManager {
+
+    // The save property names a file to checkpoint the game to; the load property names one to resume from
+    public static final String SAVE_FILE_PROPERTY = "save.file";
+    public static final String LOAD_FILE_PROPERTY = "load.file";
+    private static final long CAPTURE_TIMEOUT_MILLIS = 5000;
+
+    private final GameState gameState;
+    private final Spawner spawner;
+    private final WallBuilder wallBuilder;
+
+    public SaveGameManager(GameState gameState, Spawner spawner, WallBuilder wallBuilder) {
+        this.gameState = gameState;
+        this.spawner = spawner;
+        this.wallBuilder = wallBuilder;
+    }
+
+    /**
+     * Saves the game to a file. The world is captured on the game thread, but the file is written on the calling
+     * thread, which must not be the JavaFX thread or the game thread.
+     *
+     * @param file The file to write.
+     * @return The save that was written.
+     * @throws IOException          If the game cannot be captured or the file cannot be written.
+     * @throws InterruptedException If the save is interrupted.
+     */
+    public GameSave save(Path file) throws IOException, InterruptedException {
+        CompletableFuture<GameSave> capture = new CompletableFuture<>();
+        gameState.asyncCapture(capture::complete);
+        GameSave save;
+        try {
+            save = capture.get(CAPTURE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IOException("Cannot capture the game state (is the game running?)", e);
+        }
+        save = save.withPendingWork(Spawner.getLastRobotId(), wallBuilder.getQueuedWalls());
+        save.write(file);
+        return save;
+    }
+
+    /**
+     * Restores a saved game. This should be called on a new game before its threads are started, so that the saved
+     * world is in place before the first robot spawns or wall is built. The robots' movement schedules are re-armed
+     * straight away, and their first moves run once the game thread starts.
+     *
+     * @param file The file to read.
+     * @return The save that was restored.
+     * @throws IOException          If the file cannot be read, is not a valid save, or is for a different arena size.
+     * @throws InterruptedException If the restore is interrupted.
+     */
+    public GameSave restore(Path file) throws IOException, InterruptedException {
+        GameSave save = GameSave.read(file);
+        try {
+            gameState.restore(save);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(file + " cannot be restored: " + e.getMessage(), e);
+        }
+        spawner.resume(save.getRobots(), save.getLastRobotId());
+        wallBuilder.restoreQueue(save.getQueuedWalls());
+        return save;
+    }
+}
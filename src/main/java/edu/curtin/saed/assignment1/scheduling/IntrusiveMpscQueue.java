@@ -0,0 +1,102 @@
+package edu.curtin.saed.assignment1.scheduling;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An unbounded multi-producer, single-consumer queue whose elements carry their own link, so adding and polling
+ * never allocate: a command object that is reused for every move can be queued again and again without garbage.
+ * <p>
+ * This is Dmitry Vyukov's intrusive MPSC queue. Producers swap themselves in as the tail with one atomic
+ * exchange and then link the previous tail to themselves; the consumer follows the links from a permanent stub
+ * node. Any thread may add, but only one thread at a time (the owner, such as the game thread) may poll.
+ * <p>
+ * A node must not be added again until it has been polled. Between a producer's exchange and its link the queue
+ * is briefly not empty but has nothing to poll; poll() then returns null and isEmpty() false, and the consumer
+ * should simply try again.
+ */
+public class IntrusiveMpscQueue {
+
+    private final Node stub = new Stub();
+    private final AtomicReference<Node> tail = new AtomicReference<>(stub);
+    // Only touched by the consumer
+    private Node head = stub;
+    private final LongAdder added = new LongAdder();
+    private volatile long polled;
+
+    /**
+     * Adds a node to the tail of the queue. May be called from any thread, and never blocks or allocates.
+     */
+    public void add(Node node) {
+        added.increment();
+        link(node);
+    }
+
+    private void link(Node node) {
+        node.queueNext = null;
+        Node previous = tail.getAndSet(node);
+        previous.queueNext = node;
+    }
+
+    /**
+     * Takes the node at the head of the queue. Must only be called by the consumer.
+     *
+     * @return The node, or null if there is none ready.
+     */
+    public Node poll() {
+        Node first = head;
+        Node next = first.queueNext;
+        if (first.equals(stub)) {
+            if (next == null) {
+                return null;
+            }
+            head = next;
+            first = next;
+            next = next.queueNext;
+        }
+        if (next == null) {
+            if (!first.equals(tail.get())) {
+                // A producer has swapped in a new tail but not linked it yet
+                return null;
+            }
+            // The last node can only be taken once the stub stands behind it
+            link(stub);
+            next = first.queueNext;
+            if (next == null) {
+                return null;
+            }
+        }
+        head = next;
+        polled++;
+        return first;
+    }
+
+    /**
+     * Checks whether nothing has been added that is yet to be polled. Must only be called by the consumer.
+     */
+    public boolean isEmpty() {
+        return head.equals(stub) && tail.get().equals(stub);
+    }
+
+    /**
+     * Gets the number of nodes added but not yet polled. May be called from any thread; it is exact once
+     * producers have stopped.
+     */
+    public long size() {
+        return Math.max(0, added.sum() - polled);
+    }
+
+    /**
+     * An element of the queue, to be extended by the objects queued. It can be in at most one queue at a time.
+     */
+    public static class Node {
+        private volatile Node queueNext;
+
+        protected Node() {
+            // Only subclasses are queued
+        }
+    }
+
+    private static final class Stub extends Node {
+    }
+}
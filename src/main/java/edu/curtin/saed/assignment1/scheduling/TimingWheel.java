@@ -0,0 +1,432 @@
+package edu.curtin.saed.assignment1.scheduling;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A hierarchical timing wheel: a scheduler for very many timed tasks, such as the periodic moves of thousands of
+ * robots, that keeps them in time slots instead of a priority queue.
+ * <p>
+ * Time is divided into ticks of a configurable resolution. The first wheel has WHEEL_SIZE slots, one per tick;
+ * each wheel above it has WHEEL_SIZE slots spanning a whole turn of the wheel below, so LEVELS wheels cover
+ * WHEEL_SIZE^LEVELS ticks. A task goes into the slot of the lowest wheel that reaches its deadline, and when a
+ * lower wheel completes a turn the next slot of the wheel above is cascaded down into it. Each slot is an
+ * intrusive doubly linked list, so adding or removing a task is O(1) whatever the number of tasks.
+ * <p>
+ * One thread wakes once per tick (never once per task), collects every task due in that tick and hands them to
+ * the executor as one batch. Tasks never run early, and run up to one tick late. Periodic tasks run at a fixed
+ * rate: each deadline is the previous one plus the period. A periodic task that runs a whole period or more late
+ * runs once, and the periods that fell due meanwhile are skipped and counted as missed, once each.
+ * <p>
+ * Tasks may be scheduled and cancelled from any thread. Both only enqueue the request, in O(1); the wheel thread
+ * applies it at the start of its next tick.
+ * <p>
+ * A one-off timeout made with newTimeout() can be armed again each time it has run, such as a robot's arrival at
+ * the end of every move. Arming it allocates nothing, as timeouts are queued for the wheel thread through their
+ * own link.
+ */
+public class TimingWheel {
+
+    // The 'movement.wheel.tick' system property sets the tick (slot resolution) in milliseconds
+    public static final String TICK_PROPERTY = "movement.wheel.tick";
+    public static final long DEFAULT_TICK_MILLIS = 10;
+    public static final int WHEEL_BITS = 8;
+    public static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    public static final int LEVELS = 4;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private final long tickNanos;
+    private final long startNanos;
+    private final Executor executor;
+    // Heads of each slot's list of timeouts, by wheel level and slot; only touched by the wheel thread
+    private final Timeout[][] slots = new Timeout[LEVELS][WHEEL_SIZE];
+    private final IntrusiveMpscQueue pendingAdds = new IntrusiveMpscQueue();
+    private final Queue<Timeout> pendingCancels = new ConcurrentLinkedQueue<>();
+    // Polled empty as the tick's tasks fire, as iterating over a list would allocate every tick
+    private final Queue<Timeout> due = new ArrayDeque<>();
+    // The tick being processed, counted from startNanos; only touched by the wheel thread
+    private long currentTick;
+
+    private final LongAdder activeCount = new LongAdder();
+    private final LongAdder periodicCount = new LongAdder();
+    private final LongAdder firedCount = new LongAdder();
+    private final LongAdder missedPeriods = new LongAdder();
+    private volatile long processedTicks;
+    private volatile boolean running = true;
+    private Thread thread;
+
+    /**
+     * Creates a timing wheel. Tasks may be scheduled straight away, and are counted from now, but do not run
+     * until start() is called.
+     *
+     * @param tick     The tick (slot resolution).
+     * @param unit     The unit of the tick.
+     * @param executor Runs the tasks as they fall due.
+     */
+    public TimingWheel(long tick, TimeUnit unit, Executor executor) {
+        if (tick <= 0) {
+            throw new IllegalArgumentException("The tick must be positive");
+        }
+        this.tickNanos = unit.toNanos(tick);
+        this.executor = executor;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Reads the tick from the 'movement.wheel.tick' system property.
+     *
+     * @return The tick in milliseconds, or DEFAULT_TICK_MILLIS if the property is not set or not a positive number.
+     */
+    public static long tickMillisFromSystemProperties() {
+        try {
+            long tickMillis = Long.parseLong(System.getProperty(TICK_PROPERTY, Long.toString(DEFAULT_TICK_MILLIS)).trim());
+            return tickMillis > 0 ? tickMillis : DEFAULT_TICK_MILLIS;
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid " + TICK_PROPERTY + ", using " + DEFAULT_TICK_MILLIS + " ms: " + e.getMessage());
+            return DEFAULT_TICK_MILLIS;
+        }
+    }
+
+    /**
+     * Starts the wheel thread, which runs the tasks as they fall due.
+     */
+    public void start() {
+        thread = new Thread(this::runWheel, "timing-wheel-thread");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the wheel thread and waits for it to finish. Tasks still scheduled never run.
+     */
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                System.err.println(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Schedules a task to run once after a delay.
+     *
+     * @param task  The task.
+     * @param delay The delay.
+     * @param unit  The unit of the delay.
+     * @return A handle with which the task can be cancelled.
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        return add(new Timeout(this, task, System.nanoTime() + unit.toNanos(delay), 0));
+    }
+
+    /**
+     * Schedules a task to run periodically at a fixed rate, first after the initial delay and then every period
+     * after that, until it is cancelled.
+     *
+     * @param task         The task.
+     * @param initialDelay The delay before the first run.
+     * @param period       The time between the starts of successive runs.
+     * @param unit         The unit of the delay and period.
+     * @return A handle with which the task can be cancelled.
+     */
+    public Timeout scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("The period must be positive");
+        }
+        periodicCount.increment();
+        return add(new Timeout(this, task, System.nanoTime() + unit.toNanos(initialDelay), unit.toNanos(period)));
+    }
+
+    /**
+     * Creates a one-off timeout for a task without scheduling it, to be armed with arm() as often as needed.
+     *
+     * @param task The task.
+     * @return The timeout, which has not been armed.
+     */
+    public Timeout newTimeout(Runnable task) {
+        Timeout timeout = new Timeout(this, task, 0, 0);
+        timeout.state.set(Timeout.DONE);
+        return timeout;
+    }
+
+    /**
+     * Schedules a one-off timeout from newTimeout() to run its task once after a delay. It may be armed again once
+     * its task has been handed to the executor, which may be from within the task itself.
+     *
+     * @param timeout The timeout, which must have been created by this wheel.
+     * @param delay   The delay.
+     * @param unit    The unit of the delay.
+     * @return True if the timeout was armed, or false if it is already armed or has been cancelled.
+     */
+    public boolean arm(Timeout timeout, long delay, TimeUnit unit) {
+        if (!this.equals(timeout.wheel) || timeout.periodNanos > 0) {
+            throw new IllegalArgumentException("Only one-off timeouts from this wheel's newTimeout() can be armed");
+        }
+        // The state only returns to SCHEDULED once the wheel thread has finished with the timeout's links
+        if (!timeout.state.compareAndSet(Timeout.DONE, Timeout.SCHEDULED)) {
+            return false;
+        }
+        timeout.deadlineNanos = System.nanoTime() + unit.toNanos(delay);
+        add(timeout);
+        return true;
+    }
+
+    private Timeout add(Timeout timeout) {
+        activeCount.increment();
+        pendingAdds.add(timeout);
+        return timeout;
+    }
+
+    public long getTickNanos() {
+        return tickNanos;
+    }
+
+    /**
+     * Gets the number of tasks scheduled and not yet cancelled (or, for one-off tasks, not yet run).
+     */
+    public long getActiveCount() {
+        return activeCount.sum();
+    }
+
+    /**
+     * Gets the number of periodic tasks scheduled and not yet cancelled.
+     */
+    public long getPeriodicCount() {
+        return periodicCount.sum();
+    }
+
+    /**
+     * Gets the number of times a task has been handed to the executor.
+     */
+    public long getFiredCount() {
+        return firedCount.sum();
+    }
+
+    /**
+     * Gets the number of periods of periodic tasks that fell due a whole period or more before they could run.
+     */
+    public long getMissedPeriods() {
+        return missedPeriods.sum();
+    }
+
+    public long getProcessedTicks() {
+        return processedTicks;
+    }
+
+    /**
+     * Waits for each tick's deadline and processes it. A thread that falls behind processes the ticks it missed
+     * back to back, without waiting, until it has caught up.
+     */
+    private void runWheel() {
+        while (running) {
+            long wait = startNanos + (currentTick + 1) * tickNanos - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+            } else {
+                currentTick++;
+                processTick();
+                processedTicks = currentTick;
+            }
+        }
+    }
+
+    /**
+     * Applies the pending cancellations and additions, cascades the higher wheels whose turn has come, and runs
+     * every task due in the current tick.
+     */
+    private void processTick() {
+        Timeout cancelled = pendingCancels.poll();
+        while (cancelled != null) {
+            unlink(cancelled);
+            cancelled = pendingCancels.poll();
+        }
+        Timeout added = (Timeout) pendingAdds.poll();
+        while (added != null) {
+            if (!added.isCancelled()) {
+                place(added, currentTick);
+            }
+            added = (Timeout) pendingAdds.poll();
+        }
+
+        // Higher wheels first, so a task cascading down several levels at once reaches the first wheel this tick
+        for (int level = LEVELS - 1; level > 0; level--) {
+            long levelMask = (1L << (WHEEL_BITS * level)) - 1;
+            if ((currentTick & levelMask) == 0) {
+                int slot = (int) ((currentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+                Timeout timeout = detach(level, slot);
+                while (timeout != null) {
+                    Timeout next = timeout.next;
+                    timeout.next = null;
+                    place(timeout, currentTick);
+                    timeout = next;
+                }
+            }
+        }
+
+        Timeout timeout = detach(0, (int) (currentTick & WHEEL_MASK));
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            timeout.next = null;
+            due.add(timeout);
+            timeout = next;
+        }
+        Timeout dueTimeout = due.poll();
+        while (dueTimeout != null) {
+            fire(dueTimeout);
+            dueTimeout = due.poll();
+        }
+    }
+
+    /**
+     * Hands a due task to the executor and, if it is periodic, schedules its next run: the first deadline after now,
+     * as the run being handed over stands in for any periods that fell due while it was late.
+     */
+    private void fire(Timeout timeout) {
+        if (timeout.isCancelled()) {
+            return;
+        }
+        if (timeout.periodNanos > 0) {
+            long lateness = System.nanoTime() - timeout.deadlineNanos;
+            long skipped = lateness >= timeout.periodNanos ? lateness / timeout.periodNanos : 0;
+            missedPeriods.add(skipped);
+            timeout.deadlineNanos += (skipped + 1) * timeout.periodNanos;
+            place(timeout, currentTick + 1);
+        } else if (timeout.state.compareAndSet(Timeout.SCHEDULED, Timeout.DONE)) {
+            activeCount.decrement();
+        } else {
+            return;
+        }
+        firedCount.increment();
+        try {
+            executor.execute(timeout.task);
+        } catch (RejectedExecutionException e) {
+            // The executor is shutting down along with the game
+            timeout.cancel();
+        }
+    }
+
+    /**
+     * Links a timeout into the slot for its deadline, in the lowest wheel that reaches it.
+     *
+     * @param earliestTick The earliest tick the timeout may be placed in; due timeouts go here.
+     */
+    private void place(Timeout timeout, long earliestTick) {
+        long offset = timeout.deadlineNanos - startNanos;
+        // Round up, so that a task never runs before its deadline
+        long deadlineTick = Math.max(earliestTick, offset <= 0 ? 0 : (offset + tickNanos - 1) / tickNanos);
+        long delta = deadlineTick - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (WHEEL_BITS * (level + 1))) {
+            level++;
+        }
+        if (delta >= 1L << (WHEEL_BITS * LEVELS)) {
+            // Beyond the last wheel: park it in the furthest slot, from which it cascades and is placed again
+            deadlineTick = currentTick + (1L << (WHEEL_BITS * LEVELS)) - 1;
+        }
+        int slot = (int) ((deadlineTick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+        Timeout head = slots[level][slot];
+        timeout.level = level;
+        timeout.slot = slot;
+        timeout.prev = null;
+        timeout.next = head;
+        if (head != null) {
+            head.prev = timeout;
+        }
+        slots[level][slot] = timeout;
+    }
+
+    /**
+     * Removes a timeout from the slot it is in, if it is in one.
+     */
+    private void unlink(Timeout timeout) {
+        if (timeout.level < 0) {
+            return;
+        }
+        if (timeout.prev == null) {
+            slots[timeout.level][timeout.slot] = timeout.next;
+        } else {
+            timeout.prev.next = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.level = -1;
+    }
+
+    /**
+     * Empties a slot, returning its list of timeouts, which are no longer in any slot.
+     */
+    private Timeout detach(int level, int slot) {
+        Timeout head = slots[level][slot];
+        slots[level][slot] = null;
+        for (Timeout timeout = head; timeout != null; timeout = timeout.next) {
+            timeout.level = -1;
+            timeout.prev = null;
+        }
+        return head;
+    }
+
+    /**
+     * A task scheduled on a timing wheel, which can be used to cancel it.
+     */
+    public static final class Timeout extends IntrusiveMpscQueue.Node {
+
+        private static final int SCHEDULED = 0;
+        private static final int CANCELLED = 1;
+        private static final int DONE = 2;
+
+        private final TimingWheel wheel;
+        private final Runnable task;
+        private final long periodNanos;
+        private final AtomicInteger state = new AtomicInteger(SCHEDULED);
+        // Set before the timeout is published through the pending queue, then only touched by the wheel thread until
+        // it has run (for a one-off timeout, which may then be armed again)
+        private long deadlineNanos;
+        private Timeout prev;
+        private Timeout next;
+        private int level = -1;
+        private int slot;
+
+        private Timeout(TimingWheel wheel, Runnable task, long deadlineNanos, long periodNanos) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+            this.periodNanos = periodNanos;
+        }
+
+        /**
+         * Cancels the task, so it will not run again. A run already handed to the executor is not interrupted.
+         *
+         * @return True if the task was cancelled, or false if it had already been cancelled or (for a one-off
+         * task) had already run.
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(SCHEDULED, CANCELLED)) {
+                return false;
+            }
+            wheel.activeCount.decrement();
+            if (periodNanos > 0) {
+                wheel.periodicCount.decrement();
+            }
+            wheel.pendingCancels.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+    }
+}
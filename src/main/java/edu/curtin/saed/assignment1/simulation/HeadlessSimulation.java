@@ -0,0 +1,322 @@
+package edu.curtin.saed.assignment1.simulation;
+
+import edu.curtin.saed.assignment1.gamelogic.ArenaSettings;
+import edu.curtin.saed.assignment1.gamelogic.GameLog;
+import edu.curtin.saed.assignment1.gamelogic.GameState;
+import edu.curtin.saed.assignment1.gamelogic.PathingMode;
+import edu.curtin.saed.assignment1.gamelogic.RobotTable;
+import edu.curtin.saed.assignment1.gamelogic.WorldSnapshot;
+import edu.curtin.saed.assignment1.robot.RobotRules;
+import edu.curtin.saed.assignment1.wall.WallBuilder;
+import edu.curtin.saed.assignment1.worldobjects.Robot;
+import edu.curtin.saed.assignment1.worldobjects.Wall;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Runs the full game rules without JavaFX, as a discrete fixed-step engine. Spawning, movement, wall building,
+ * wall damage, scoring and game over follow the same rules as the threaded game (they are enforced by the same
+ * GameState and RobotRules), but time advances in fixed ticks of simulated time instead of through sleeps, so a
+ * game runs as fast as the CPU allows.
+ * <p>
+ * A simulation is single-threaded: it must only be used from the thread that created it. All randomness comes
+ * from the Random it is given and all time is simulated, so a simulation is deterministic: the same seed and the
+ * same wall requests (at the same simulated times) always produce the same game, however fast it is run. Wall
+ * requests are recorded as they are made, so a game can be replayed exactly (see ReplayRunner). The pathing mode
+ * is part of the game too, so it is always given explicitly rather than read from the system properties.
+ */
+public class HeadlessSimulation {
+
+    public static final int TICK_MILLIS = 10;
+    private static final int SCORE_INTERVAL_MILLIS = 1000;
+    public static final long DEFAULT_MAX_GAME_MILLIS = 10L * 60 * 1000;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final GameState gameState;
+    private final PathingMode pathingMode;
+    private final Random random;
+    private final List<SimulatedRobot> robots;
+    private final Deque<Wall> pendingWalls;
+    private final List<WallInput> inputs;
+    private long timeMillis;
+    private long ticks;
+    private long nextScoreAt;
+    private long nextSpawnAt;
+    private long nextWallBuildAt;
+    private int robotId;
+    private int robotsSpawned;
+
+    public HeadlessSimulation(Random random) {
+        this(random, ArenaSettings.defaults(), PathingMode.FLOW);
+    }
+
+    /**
+     * Creates a simulation that keeps no text log. Its events can still be observed on the game state's event bus.
+     */
+    public HeadlessSimulation(Random random, ArenaSettings arenaSettings, PathingMode pathingMode) {
+        this(random, new GameState(arenaSettings, pathingMode), pathingMode);
+    }
+
+    public HeadlessSimulation(Random random, ArenaSettings arenaSettings, PathingMode pathingMode, GameLog gameLog) {
+        this(random, new GameState(gameLog, arenaSettings, pathingMode), pathingMode);
+    }
+
+    private HeadlessSimulation(Random random, GameState gameState, PathingMode pathingMode) {
+        this.random = random;
+        this.gameState = gameState;
+        this.pathingMode = pathingMode;
+        this.robots = new ArrayList<>();
+        this.pendingWalls = new ArrayDeque<>();
+        this.inputs = new ArrayList<>();
+        this.nextScoreAt = SCORE_INTERVAL_MILLIS;
+        gameState.startHeadless();
+    }
+
+    /**
+     * Runs the game until a robot reaches the citadel or the given amount of simulated time has passed.
+     *
+     * @param maxMillis The maximum simulated time to run for, in milliseconds.
+     * @return The outcome of the game.
+     * @throws InterruptedException If the operation is interrupted.
+     */
+    public SimulationResult run(long maxMillis) throws InterruptedException {
+        while (!gameState.getIsGameOverStatus() && timeMillis < maxMillis) {
+            tick();
+        }
+        return getResult();
+    }
+
+    /**
+     * Advances the game by one fixed step of TICK_MILLIS simulated milliseconds. Everything that falls due at the
+     * current simulated time happens first, then every resulting game state command is executed, then time moves on.
+     *
+     * @throws InterruptedException If the operation is interrupted.
+     */
+    public void tick() throws InterruptedException {
+        if (timeMillis >= nextScoreAt) {
+            gameState.awardSurvivalPoints();
+            nextScoreAt += SCORE_INTERVAL_MILLIS;
+        }
+        if (timeMillis >= nextSpawnAt) {
+            spawnRobot();
+            nextSpawnAt += RobotRules.SPAWN_INTERVAL_MILLIS;
+        }
+        if (!pendingWalls.isEmpty() && timeMillis >= nextWallBuildAt) {
+            gameState.addWalls(pendingWalls.poll());
+            nextWallBuildAt = timeMillis + WallBuilder.BUILD_DELAY_MILLIS;
+        }
+        moveRobots();
+        gameState.runPendingCommands();
+
+        timeMillis += TICK_MILLIS;
+        ticks++;
+    }
+
+    /**
+     * Player input: queues a wall at the given cell, exactly as clicking the arena does in the threaded game. The
+     * request is recorded, with the current simulated time, whether or not a wall ends up being built.
+     *
+     * @param x The X-coordinate where the wall should be built.
+     * @param y The Y-coordinate where the wall should be built.
+     * @throws InterruptedException If the operation is interrupted.
+     */
+    public void requestWall(int x, int y) throws InterruptedException {
+        inputs.add(new WallInput(timeMillis, x, y));
+        if (pendingWalls.size() < WallBuilder.QUEUE_CAPACITY && gameState.getTotalWallsBuilt() != GameState.MAX_WALLS) {
+            gameState.asyncHasWall(x, y, hasWall -> {
+                if (!hasWall && pendingWalls.size() < WallBuilder.QUEUE_CAPACITY) {
+                    pendingWalls.add(new Wall(x, y));
+                }
+            });
+        }
+    }
+
+    public GameState getGameState() {
+        return gameState;
+    }
+
+    public PathingMode getPathingMode() {
+        return pathingMode;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    /**
+     * Gets every wall request made so far, in the order they were made.
+     */
+    public List<WallInput> getInputs() {
+        return Collections.unmodifiableList(inputs);
+    }
+
+    /**
+     * Computes a 64-bit FNV-1a hash of the complete game state: simulated time, score, game over status, every
+     * robot (ID, movement delay and position) and every wall (position and health), in game order. Two runs of
+     * the same game have the same hash at the same simulated time; any divergence changes it.
+     * <p>
+     * Only the rules state is hashed. When a robot's move animation started is wall-clock time, used for drawing
+     * only, so it is left out.
+     *
+     * @return The state hash.
+     */
+    public long stateHash() {
+        WorldSnapshot snapshot = gameState.getWorldSnapshot();
+        long hash = FNV_OFFSET_BASIS;
+        hash = mix(hash, timeMillis);
+        hash = mix(hash, gameState.getScore());
+        hash = mix(hash, gameState.getIsGameOverStatus() ? 1 : 0);
+        RobotTable robotTable = snapshot.getRobots();
+        hash = mix(hash, robotTable.size());
+        for (int slot = 0; slot < robotTable.getSlotCount(); slot++) {
+            if (robotTable.isRobot(slot)) {
+                hash = mix(hash, robotTable.getId(slot));
+                hash = mix(hash, robotTable.getDelay(slot));
+                hash = mix(hash, robotTable.getCellX(slot));
+                hash = mix(hash, robotTable.getCellY(slot));
+                hash = mix(hash, robotTable.getNextX(slot));
+                hash = mix(hash, robotTable.getNextY(slot));
+            }
+        }
+        hash = mix(hash, snapshot.getWalls().size());
+        for (Wall wall : snapshot.getWalls()) {
+            hash = mix(hash, Double.doubleToLongBits(wall.getPositionX()));
+            hash = mix(hash, Double.doubleToLongBits(wall.getPositionY()));
+            hash = mix(hash, wall.getHealthPoints());
+        }
+        return hash;
+    }
+
+    /**
+     * Folds the eight bytes of a value into an FNV-1a hash.
+     */
+    private static long mix(long hash, long value) {
+        long result = hash;
+        for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+            result ^= (value >>> shift) & 0xff;
+            result *= FNV_PRIME;
+        }
+        return result;
+    }
+
+    public SimulationResult getResult() {
+        return new SimulationResult(gameState.getIsGameOverStatus(), gameState.getScore(), timeMillis, ticks,
+                robotsSpawned, gameState.getTotalWallsBuilt());
+    }
+
+    /**
+     * Spawns a robot in a random corner of the grid, if the corner is free.
+     */
+    private void spawnRobot() throws InterruptedException {
+        int[] corner = RobotRules.cornerPosition(RobotRules.chooseCorner(random), gameState.getGridWidth(), gameState.getGridHeight());
+        robotId += 1;
+        int delay = RobotRules.chooseDelay(random);
+        int initialDelay = RobotRules.chooseInitialDelay(random);
+        Robot newRobot = new Robot(robotId, delay, corner[0], corner[1]);
+
+        gameState.asyncSpawnRobot(newRobot, spawned -> {
+            if (spawned) {
+                robots.add(new SimulatedRobot(newRobot, timeMillis + initialDelay));
+                robotsSpawned++;
+            } else {
+                robotId -= 1;
+            }
+        });
+    }
+
+    /**
+     * Starts the moves of robots that are due to move, and completes the moves of robots whose move duration has
+     * elapsed. Robots move at a fixed rate, like the scheduled Movement tasks of the threaded game.
+     */
+    private void moveRobots() throws InterruptedException {
+        Iterator<SimulatedRobot> iterator = robots.iterator();
+        while (iterator.hasNext()) {
+            SimulatedRobot simulatedRobot = iterator.next();
+            Robot robot = simulatedRobot.robot;
+            if (simulatedRobot.destroyed) {
+                iterator.remove();
+            } else if (simulatedRobot.arriveAt >= 0) {
+                if (timeMillis >= simulatedRobot.arriveAt) {
+                    simulatedRobot.arriveAt = -1;
+                    gameState.asyncCompleteMove(robot, isWallHit -> {
+                        simulatedRobot.destroyed = isWallHit;
+                        simulatedRobot.cellX = simulatedRobot.nextX;
+                        simulatedRobot.cellY = simulatedRobot.nextY;
+                    });
+                }
+            } else if (timeMillis >= simulatedRobot.nextMoveAt) {
+                simulatedRobot.nextMoveAt += robot.getDelay();
+                int[] nextCell = RobotRules.chooseNextCell(simulatedRobot.cellX, simulatedRobot.cellY,
+                        gameState.getCitadelPositionX(), gameState.getCitadelPositionY(), gameState.getFlowField(), random);
+                if (!RobotRules.isGridBoundaryCheck(nextCell[0], nextCell[1], gameState.getGridWidth(), gameState.getGridHeight())) {
+                    gameState.asyncReserveMove(robot, nextCell[0], nextCell[1], RobotRules.MOVE_DURATION_MILLIS, isReserved -> {
+                        if (isReserved) {
+                            simulatedRobot.arriveAt = timeMillis + RobotRules.MOVE_DURATION_MILLIS;
+                            simulatedRobot.nextX = nextCell[0];
+                            simulatedRobot.nextY = nextCell[1];
+                        }
+                    });
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs a batch of headless games and reports how fast they ran.
+     *
+     * @param args Optionally, the number of games to run (default 1000). The arena size and pathing mode are
+     *             read from the 'arena.size' and 'robot.pathing' system properties.
+     * @throws InterruptedException If the simulation is interrupted.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        ArenaSettings arenaSettings = ArenaSettings.fromSystemProperties();
+        PathingMode pathingMode = PathingMode.fromSystemProperties();
+
+        long startNanos = System.nanoTime();
+        long totalScore = 0;
+        long totalSimulatedMillis = 0;
+        for (int game = 0; game < games; game++) {
+            HeadlessSimulation simulation = new HeadlessSimulation(new Random(game), arenaSettings, pathingMode);
+            SimulationResult result = simulation.run(DEFAULT_MAX_GAME_MILLIS);
+            totalScore += result.getScore();
+            totalSimulatedMillis += result.getElapsedMillis();
+        }
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+
+        System.out.printf("%d games in %.2f s (%.0f games/min)%n", games, elapsedSeconds, games / elapsedSeconds * 60);
+        System.out.printf("average score %.1f, average game length %.1f s simulated%n",
+                (double) totalScore / games, totalSimulatedMillis / 1000.0 / games);
+    }
+
+    /**
+     * A spawned robot together with its movement timing, which the threaded game keeps in its scheduler instead,
+     * and its cell, which the threaded game's movers learn from their move commands.
+     */
+    private static final class SimulatedRobot {
+        private final Robot robot;
+        private long nextMoveAt;
+        private long arriveAt;
+        private boolean destroyed;
+        private int cellX;
+        private int cellY;
+        // The cell reserved for the move in progress
+        private int nextX;
+        private int nextY;
+
+        private SimulatedRobot(Robot robot, long nextMoveAt) {
+            this.robot = robot;
+            this.nextMoveAt = nextMoveAt;
+            this.arriveAt = -1;
+            this.cellX = (int) robot.getCurrX();
+            this.cellY = (int) robot.getCurrY();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package edu.curtin.saed.assignment1.simulation;
+
+import edu.curtin.saed.assignment1.gamelogic.ArenaSettings;
+import edu.curtin.saed.assignment1.gamelogic.PathingMode;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything needed to reproduce a headless game exactly, and to check that it was reproduced: the seed, the arena
+ * size, the robots' pathing mode, the time limit and the player's wall requests, plus the state hash at regular
+ * checkpoints and at the end.
+ * <p>
+ * Recordings are stored as small text files, one item per line:
+ * <pre>
+ *   seed 42
+ *   arena 9x9
+ *   pathing flow
+ *   max-millis 600000
+ *   wall 1230 3 4
+ *   checkpoint 1000 8c3f2b9e01d45a77
+ *   final 10930 0f1e2d3c4b5a6978
+ * </pre>
+ * Version 3 hashes robot cells as the integers the robot table holds. Earlier versions hashed them as doubles,
+ * which this version no longer computes, so their hashes cannot be checked and they have to be recorded again.
+ */
+public class ReplayRecording {
+
+    private static final String HEADER_PREFIX = "# Tower defense replay, version ";
+    private static final int VERSION = 3;
+
+    private final long seed;
+    private final ArenaSettings arenaSettings;
+    private final PathingMode pathingMode;
+    private final long maxMillis;
+    private final List<WallInput> inputs;
+    // State hash at each checkpoint, by simulated time
+    private final Map<Long, Long> checkpoints;
+    private final long finalTimeMillis;
+    private final long finalHash;
+
+    public ReplayRecording(long seed, ArenaSettings arenaSettings, PathingMode pathingMode, long maxMillis,
+                           List<WallInput> inputs, Map<Long, Long> checkpoints, long finalTimeMillis, long finalHash) {
+        this.seed = seed;
+        this.arenaSettings = arenaSettings;
+        this.pathingMode = pathingMode;
+        this.maxMillis = maxMillis;
+        this.inputs = Collections.unmodifiableList(new ArrayList<>(inputs));
+        this.checkpoints = Collections.unmodifiableMap(new LinkedHashMap<>(checkpoints));
+        this.finalTimeMillis = finalTimeMillis;
+        this.finalHash = finalHash;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public ArenaSettings getArenaSettings() {
+        return arenaSettings;
+    }
+
+    public PathingMode getPathingMode() {
+        return pathingMode;
+    }
+
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+
+    public List<WallInput> getInputs() {
+        return inputs;
+    }
+
+    public Map<Long, Long> getCheckpoints() {
+        return checkpoints;
+    }
+
+    public long getFinalTimeMillis() {
+        return finalTimeMillis;
+    }
+
+    public long getFinalHash() {
+        return finalHash;
+    }
+
+    /**
+     * Writes the recording to a file, replacing any existing file.
+     *
+     * @param file The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void save(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(HEADER_PREFIX + VERSION);
+            writer.newLine();
+            writer.write("seed " + seed);
+            writer.newLine();
+            writer.write("arena " + arenaSettings.getWidth() + "x" + arenaSettings.getHeight());
+            writer.newLine();
+            writer.write("pathing " + pathingMode.getName());
+            writer.newLine();
+            writer.write("max-millis " + maxMillis);
+            writer.newLine();
+            for (WallInput input : inputs) {
+                writer.write(String.format("wall %d %d %d", input.getTimeMillis(), input.getX(), input.getY()));
+                writer.newLine();
+            }
+            for (Map.Entry<Long, Long> checkpoint : checkpoints.entrySet()) {
+                writer.write(String.format("checkpoint %d %016x", checkpoint.getKey(), checkpoint.getValue()));
+                writer.newLine();
+            }
+            writer.write(String.format("final %d %016x", finalTimeMillis, finalHash));
+            writer.newLine();
+        }
+    }
+
+    /**
+     * Reads a recording from a file.
+     *
+     * @param file The file to read.
+     * @return The recording.
+     * @throws IOException If the file cannot be read, is not a valid recording or is from another version.
+     */
+    public static ReplayRecording load(Path file) throws IOException {
+        // Version 1 recordings have no header line
+        int version = 1;
+        long seed = 0;
+        ArenaSettings arenaSettings = ArenaSettings.defaults();
+        PathingMode pathingMode = null;
+        long maxMillis = HeadlessSimulation.DEFAULT_MAX_GAME_MILLIS;
+        List<WallInput> inputs = new ArrayList<>();
+        Map<Long, Long> checkpoints = new LinkedHashMap<>();
+        long finalTimeMillis = -1;
+        long finalHash = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            int lineNumber = 1;
+            while (line != null) {
+                String[] fields = line.trim().split("\\s+");
+                try {
+                    if (line.startsWith(HEADER_PREFIX)) {
+                        version = Integer.parseInt(line.substring(HEADER_PREFIX.length()).trim());
+                    }
+                    switch (fields[0]) {
+                        case "seed" -> seed = Long.parseLong(fields[1]);
+                        case "arena" -> arenaSettings = ArenaSettings.parse(fields[1]);
+                        case "pathing" -> pathingMode = PathingMode.parse(fields[1]);
+                        case "max-millis" -> maxMillis = Long.parseLong(fields[1]);
+                        case "wall" -> inputs.add(new WallInput(Long.parseLong(fields[1]),
+                                Integer.parseInt(fields[2]), Integer.parseInt(fields[3])));
+                        case "checkpoint" -> checkpoints.put(Long.parseLong(fields[1]), Long.parseUnsignedLong(fields[2], 16));
+                        case "final" -> {
+                            finalTimeMillis = Long.parseLong(fields[1]);
+                            finalHash = Long.parseUnsignedLong(fields[2], 16);
+                        }
+                        default -> {
+                            if (!fields[0].isEmpty() && !fields[0].startsWith("#")) {
+                                throw new IOException(String.format("%s:%d: unknown entry '%s'", file, lineNumber, fields[0]));
+                            }
+                        }
+                    }
+                } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                    throw new IOException(String.format("%s:%d: invalid entry '%s'", file, lineNumber, line), e);
+                }
+                line = reader.readLine();
+                lineNumber++;
+            }
+        }
+        if (version != VERSION) {
+            throw new IOException(String.format("%s is a version %d recording, whose state hashes this version cannot"
+                    + " check; only version %d can be replayed, so record it again", file, version, VERSION));
+        }
+        if (finalTimeMillis < 0) {
+            throw new IOException(file + " has no final state hash");
+        }
+        if (pathingMode == null) {
+            throw new IOException(file + " has no pathing mode");
+        }
+        return new ReplayRecording(seed, arenaSettings, pathingMode, maxMillis, inputs, checkpoints, finalTimeMillis,
+                finalHash);
+    }
+}
@@ -0,0 +1,189 @@
+package edu.curtin.saed.assignment1.simulation;
+
+import edu.curtin.saed.assignment1.gamelogic.ArenaSettings;
+import edu.curtin.saed.assignment1.gamelogic.PathingMode;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Records deterministic headless games and replays them, checking that a replay reproduces the recorded game
+ * exactly.
+ * <p>
+ * A recording is made by playing a game from a seed with a simple scripted player, who requests walls around the
+ * citadel at random (from its own generator, derived from the seed). Its wall requests, the state hash every
+ * CHECKPOINT_INTERVAL_MILLIS of simulated time and the final state hash are saved. Replaying feeds the recorded
+ * requests back in at the same simulated times and compares the hashes, reporting the first checkpoint at which the
+ * game diverged. Replays can be paced at any speed, which must not change the result.
+ */
+public final class ReplayRunner {
+
+    public static final long CHECKPOINT_INTERVAL_MILLIS = 1000;
+    private static final long PLAYER_INTERVAL_MILLIS = 700;
+    private static final int PLAYER_REACH = 2;
+    private static final long PLAYER_SEED_SALT = 0x9E3779B97F4A7C15L;
+
+    private ReplayRunner() {
+    }
+
+    /**
+     * Plays and records a game.
+     *
+     * @param seed          The seed for the game's randomness.
+     * @param arenaSettings The arena size.
+     * @param pathingMode   How the robots find their way to the citadel.
+     * @param maxMillis     The maximum simulated time to play for.
+     * @return The recording.
+     * @throws InterruptedException If the game is interrupted.
+     */
+    public static ReplayRecording record(long seed, ArenaSettings arenaSettings, PathingMode pathingMode, long maxMillis)
+            throws InterruptedException {
+        HeadlessSimulation simulation = new HeadlessSimulation(new Random(seed), arenaSettings, pathingMode);
+        Random player = new Random(seed ^ PLAYER_SEED_SALT);
+        Map<Long, Long> checkpoints = new LinkedHashMap<>();
+
+        while (!simulation.getGameState().getIsGameOverStatus() && simulation.getTimeMillis() < maxMillis) {
+            if (simulation.getTimeMillis() % PLAYER_INTERVAL_MILLIS == 0) {
+                int citadelX = (int) simulation.getGameState().getCitadelPositionX();
+                int citadelY = (int) simulation.getGameState().getCitadelPositionY();
+                int x = citadelX + player.nextInt(2 * PLAYER_REACH + 1) - PLAYER_REACH;
+                int y = citadelY + player.nextInt(2 * PLAYER_REACH + 1) - PLAYER_REACH;
+                if ((x != citadelX || y != citadelY) && x >= 0 && y >= 0
+                        && x < arenaSettings.getWidth() && y < arenaSettings.getHeight()) {
+                    simulation.requestWall(x, y);
+                }
+            }
+            simulation.tick();
+            recordCheckpoint(simulation, checkpoints);
+        }
+        return new ReplayRecording(seed, arenaSettings, pathingMode, maxMillis, simulation.getInputs(), checkpoints,
+                simulation.getTimeMillis(), simulation.stateHash());
+    }
+
+    /**
+     * Replays a recorded game and compares it with the recording.
+     *
+     * @param recording The recording.
+     * @param speed     How fast to run relative to real time (2.0 is twice as fast), or 0 to run as fast as
+     *                  possible.
+     * @return A description of the first difference from the recording, or null if the replay matched exactly.
+     * @throws InterruptedException If the replay is interrupted.
+     */
+    public static String replay(ReplayRecording recording, double speed) throws InterruptedException {
+        HeadlessSimulation simulation = new HeadlessSimulation(new Random(recording.getSeed()), recording.getArenaSettings(),
+                recording.getPathingMode());
+        Iterator<WallInput> inputs = recording.getInputs().iterator();
+        WallInput nextInput = inputs.hasNext() ? inputs.next() : null;
+        Map<Long, Long> checkpoints = new LinkedHashMap<>();
+        long tickNanos = speed > 0 ? (long) (HeadlessSimulation.TICK_MILLIS * 1_000_000L / speed) : 0;
+
+        while (!simulation.getGameState().getIsGameOverStatus() && simulation.getTimeMillis() < recording.getMaxMillis()) {
+            while (nextInput != null && nextInput.getTimeMillis() == simulation.getTimeMillis()) {
+                simulation.requestWall(nextInput.getX(), nextInput.getY());
+                nextInput = inputs.hasNext() ? inputs.next() : null;
+            }
+            simulation.tick();
+            recordCheckpoint(simulation, checkpoints);
+            if (tickNanos > 0) {
+                Thread.sleep(tickNanos / 1_000_000L, (int) (tickNanos % 1_000_000L));
+            }
+        }
+
+        for (Map.Entry<Long, Long> expected : recording.getCheckpoints().entrySet()) {
+            Long actual = checkpoints.get(expected.getKey());
+            if (actual == null || actual.longValue() != expected.getValue()) {
+                return String.format("diverged by checkpoint %d ms: expected hash %016x, got %s", expected.getKey(),
+                        expected.getValue(), actual == null ? "no checkpoint" : String.format("%016x", actual));
+            }
+        }
+        if (nextInput != null) {
+            return "game ended at " + simulation.getTimeMillis() + " ms, before input at " + nextInput.getTimeMillis() + " ms";
+        }
+        long finalHash = simulation.stateHash();
+        if (simulation.getTimeMillis() != recording.getFinalTimeMillis() || finalHash != recording.getFinalHash()) {
+            return String.format("final state differs: expected %d ms with hash %016x, got %d ms with hash %016x",
+                    recording.getFinalTimeMillis(), recording.getFinalHash(), simulation.getTimeMillis(), finalHash);
+        }
+        return null;
+    }
+
+    private static void recordCheckpoint(HeadlessSimulation simulation, Map<Long, Long> checkpoints) {
+        if (simulation.getTimeMillis() % CHECKPOINT_INTERVAL_MILLIS == 0) {
+            checkpoints.put(simulation.getTimeMillis(), simulation.stateHash());
+        }
+    }
+
+    /**
+     * Records or verifies replays.
+     * <p>
+     * 'record FILE [SEED]' plays a game (on the arena size and with the pathing mode given by the 'arena.size' and
+     * 'robot.pathing' system properties) and saves it. 'verify FILE [SPEED]' replays a saved game with the arena
+     * size and pathing mode it was recorded with, optionally paced at SPEED times real time, and exits with status 1
+     * if it does not match. 'soak COUNT' records and immediately verifies COUNT games with seeds 0 to COUNT-1.
+     *
+     * @param args The command and its arguments.
+     * @throws IOException          If a recording cannot be read or written.
+     * @throws InterruptedException If a game is interrupted.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Usage: ReplayRunner record FILE [SEED] | verify FILE [SPEED] | soak COUNT");
+            System.exit(2);
+        }
+        switch (args[0]) {
+            case "record" -> {
+                long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+                ReplayRecording recording = record(seed, ArenaSettings.fromSystemProperties(), PathingMode.fromSystemProperties(),
+                        HeadlessSimulation.DEFAULT_MAX_GAME_MILLIS);
+                Path file = Paths.get(args[1]);
+                recording.save(file);
+                System.out.printf("Recorded seed %d: %d wall requests, %d ms, final hash %016x, saved to %s%n", seed,
+                        recording.getInputs().size(), recording.getFinalTimeMillis(), recording.getFinalHash(), file);
+            }
+            case "verify" -> {
+                ReplayRecording recording = ReplayRecording.load(Paths.get(args[1]));
+                double speed = args.length > 2 ? Double.parseDouble(args[2]) : 0;
+                if (!report(args[1], replay(recording, speed))) {
+                    System.exit(1);
+                }
+            }
+            case "soak" -> {
+                int games = Integer.parseInt(args[1]);
+                ArenaSettings arenaSettings = ArenaSettings.fromSystemProperties();
+                PathingMode pathingMode = PathingMode.fromSystemProperties();
+                for (int seed = 0; seed < games; seed++) {
+                    ReplayRecording recording = record(seed, arenaSettings, pathingMode, HeadlessSimulation.DEFAULT_MAX_GAME_MILLIS);
+                    String mismatch = replay(recording, 0);
+                    if (mismatch != null) {
+                        report("seed " + seed, mismatch);
+                        System.exit(1);
+                    }
+                }
+                System.out.println(games + " games replayed exactly");
+            }
+            default -> {
+                System.err.println("Unknown command: " + args[0]);
+                System.exit(2);
+            }
+        }
+    }
+
+    /**
+     * Prints the outcome of a replay.
+     *
+     * @return True if the replay matched its recording.
+     */
+    private static boolean report(String name, String mismatch) {
+        if (mismatch != null) {
+            System.out.println(name + ": " + mismatch);
+            return false;
+        }
+        System.out.println(name + ": replay matches");
+        return true;
+    }
+}
@@ -0,0 +1,59 @@
+package edu.curtin.saed.assignment1.simulation;
+
+/**
+ * The outcome of a headless game.
+ */
+public class SimulationResult {
+
+    private final boolean gameOver;
+    private final int score;
+    private final long elapsedMillis;
+    private final long ticks;
+    private final int robotsSpawned;
+    private final int wallsStanding;
+
+    public SimulationResult(boolean gameOver, int score, long elapsedMillis, long ticks, int robotsSpawned, int wallsStanding) {
+        this.gameOver = gameOver;
+        this.score = score;
+        this.elapsedMillis = elapsedMillis;
+        this.ticks = ticks;
+        this.robotsSpawned = robotsSpawned;
+        this.wallsStanding = wallsStanding;
+    }
+
+    /**
+     * Checks whether the game ended because a robot reached the citadel, rather than by running out of time.
+     */
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Gets the simulated (not wall-clock) time the game lasted.
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public int getRobotsSpawned() {
+        return robotsSpawned;
+    }
+
+    public int getWallsStanding() {
+        return wallsStanding;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("score %d after %d ms (%d ticks), %d robots spawned, %d walls standing, game over: %b",
+                score, elapsedMillis, ticks, robotsSpawned, wallsStanding, gameOver);
+    }
+}
@@ -0,0 +1,32 @@
+package edu.curtin.saed.assignment1.simulation;
+
+/**
+ * A player's request for a wall, made at a particular simulated time.
+ */
+public class WallInput {
+
+    private final long timeMillis;
+    private final int x;
+    private final int y;
+
+    public WallInput(long timeMillis, int x, int y) {
+        this.timeMillis = timeMillis;
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * Gets the simulated time at which the request was made, before that tick's commands ran.
+     */
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+}
@@ -1,14 +1,14 @@
 package edu.curtin.saed.assignment1.ui;
 
 import edu.curtin.saed.assignment1.gamelogic.GameState;
-import edu.curtin.saed.assignment1.worldobjects.Robot;
+import edu.curtin.saed.assignment1.gamelogic.RobotTable;
+import edu.curtin.saed.assignment1.gamelogic.WorldSnapshot;
+import edu.curtin.saed.assignment1.metrics.MetricsRegistry;
 import edu.curtin.saed.assignment1.worldobjects.Wall;
 import javafx.scene.canvas.*;
-import javafx.geometry.VPos;
 import javafx.scene.image.Image;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
-import javafx.scene.text.TextAlignment;
 
 import java.io.*;
 import java.util.*;
@@ -27,12 +27,36 @@ public class JFXArena extends Pane {
     private final Image wallMaxHealth;
     private final Image wallDamaged;
 
-    // The following values are arbitrary, and you may need to modify them according to the
-    // requirements of your application.
-    private final int gridWidth = 9;
-    private final int gridHeight = 9;
+    // Internal grid lines are left out when cells are smaller than this many pixels (large arenas)
+    private static final double MIN_GRID_LINE_SPACING = 4.0;
+
+    // Beyond this many dirty regions in one frame, clearing the whole dynamic layer is cheaper
+    private static final int MAX_DIRTY_REGIONS = 256;
+    private static final double SPRITE_PADDING = 1.0;
+
+    // The grid dimensions are taken from the game state, which gets them from the arena settings.
+    private final int gridWidth;
+    private final int gridHeight;
     private double gridSquareSize; // Auto-calculated
-    private final Canvas canvas; // Used to provide a 'drawing surface'.
+    private final Canvas staticCanvas; // Grid lines and citadel, redrawn only when the arena is resized
+    private final Canvas dynamicCanvas; // Robots and walls, repainted region by region
+    private double renderedWidth = -1.0;
+    private double renderedHeight = -1.0;
+    private long renderedVersion = -1;
+    private boolean robotsInMotion;
+    // What the dynamic layer shows, as of the previous frame (drawn) and the current one (spare until swapped in);
+    // both are reused from frame to frame, so working out what changed allocates nothing
+    private RobotSprites drawnRobots = new RobotSprites();
+    private RobotSprites spareRobots = new RobotSprites();
+    private WallSprites drawnWalls = new WallSprites();
+    private WallSprites spareWalls = new WallSprites();
+    // The current frame's dirty regions, four values each: x, y, width, height
+    private final double[] dirtyRegions = new double[MAX_DIRTY_REGIONS * 4];
+    private int dirtyCount;
+    // The region of the sprite last measured by measureSprite()
+    private final double[] spriteBounds = new double[4];
+    private final SpriteCache spriteCache = new SpriteCache();
+    private final PerformanceOverlay performanceOverlay = new PerformanceOverlay();
     private List<ArenaListener> listeners = null;
     private final GameState gameState;
 
@@ -51,6 +75,8 @@ public class JFXArena extends Pane {
         // project is supposed to read its own internal resources, and should work both for 
         // './gradlew run' and './gradlew build'.)
         this.gameState = gameState;
+        this.gridWidth = gameState.getGridWidth();
+        this.gridHeight = gameState.getGridHeight();
 
         try (InputStream robotIs = getClass().getClassLoader().getResourceAsStream(ROBOT_IMAGE_FILE);
              InputStream citadelIs = getClass().getClassLoader().getResourceAsStream(CITADEL_IMAGE_FILE);
@@ -67,10 +93,13 @@ public class JFXArena extends Pane {
             throw new AssertionError("Cannot load image file", e);
         }
 
-        canvas = new Canvas();
-        canvas.widthProperty().bind(widthProperty());
-        canvas.heightProperty().bind(heightProperty());
-        getChildren().add(canvas);
+        staticCanvas = new Canvas();
+        staticCanvas.widthProperty().bind(widthProperty());
+        staticCanvas.heightProperty().bind(heightProperty());
+        dynamicCanvas = new Canvas();
+        dynamicCanvas.widthProperty().bind(widthProperty());
+        dynamicCanvas.heightProperty().bind(heightProperty());
+        getChildren().addAll(staticCanvas, dynamicCanvas, performanceOverlay.getCanvas());
     }
 
     public int getGridWidth() {
@@ -81,6 +110,28 @@ public class JFXArena extends Pane {
         return gridHeight;
     }
 
+    /**
+     * Shows or hides the performance overlay, which breaks down where each frame's time goes.
+     */
+    public void togglePerformanceOverlay() {
+        performanceOverlay.toggle();
+        requestLayout();
+    }
+
+    /**
+     * Sets the frame rate the game window aims for, shown on the performance overlay.
+     */
+    public void setTargetFps(int targetFps) {
+        performanceOverlay.setTargetFps(targetFps);
+    }
+
+    /**
+     * Sets the metrics registry the performance overlay reads the game thread's queue and latencies from.
+     */
+    public void setMetrics(MetricsRegistry metrics) {
+        performanceOverlay.setMetrics(metrics);
+    }
+
     /**
      * Adds a callback for when the user clicks on a grid square within the arena. The callback
      * (of type ArenaListener) receives the grid (x,y) coordinates as parameters to the
@@ -109,82 +160,298 @@ public class JFXArena extends Pane {
      * This method is called in order to redraw the screen, either because the user is manipulating
      * the window, OR because you've called 'requestLayout()'.
      * <p>
-     * You will need to modify the last part of this method; specifically the sequence of calls to
-     * the other 'draw...()' methods. You shouldn't need to modify anything else about it.
+     * The arena is drawn on two layers. The grid lines and the citadel never move, so they are
+     * drawn once per resize onto the static layer. Robots and walls are drawn onto the dynamic
+     * layer above it, and only the regions whose contents changed since the previous frame are
+     * repainted. If the world has not changed and no robot is part-way through a move, the frame
+     * is skipped entirely.
      */
     @Override
     public void layoutChildren() {
+        long startNanos = System.nanoTime();
         super.layoutChildren();
-        GraphicsContext gfx = canvas.getGraphicsContext2D();
-        gfx.clearRect(0.0, 0.0, canvas.getWidth(), canvas.getHeight());
 
         // First, calculate how big each grid cell should be, in pixels. (We do need to do this
         // every time we repaint the arena, because the size can change.)
-        gridSquareSize = Math.min(
-                getWidth() / (double) gridWidth,
-                getHeight() / (double) gridHeight);
+        boolean resized = getWidth() != renderedWidth || getHeight() != renderedHeight;
+        if (resized) {
+            renderedWidth = getWidth();
+            renderedHeight = getHeight();
+            gridSquareSize = Math.min(
+                    renderedWidth / (double) gridWidth,
+                    renderedHeight / (double) gridHeight);
+            spriteCache.setGridSquareSize(gridSquareSize);
+            drawStaticLayer();
+        }
+
+        // Everything is drawn from one snapshot of the world, so robots and walls are always consistent
+        long snapshotStartNanos = System.nanoTime();
+        WorldSnapshot snapshot = gameState.getWorldSnapshot();
+        long snapshotNanos = System.nanoTime() - snapshotStartNanos;
+        boolean skipped = !resized && snapshot.getVersion() == renderedVersion && !robotsInMotion;
+        if (!skipped) {
+            renderedVersion = snapshot.getVersion();
+            drawDynamicLayer(snapshot, resized);
+        }
+
+        // The overlay is drawn after the frame is timed, so it does not count towards the layout time
+        long endNanos = System.nanoTime();
+        performanceOverlay.recordFrame(startNanos, endNanos - startNanos, snapshotNanos,
+                startNanos - snapshot.getPublishedNanos(), skipped, snapshot.getRobots().size(), snapshot.getWalls().size());
+        performanceOverlay.draw(getWidth(), getHeight());
+    }
+
+    /**
+     * Draws the grid lines and the citadel onto the static layer.
+     */
+    private void drawStaticLayer() {
+        GraphicsContext gfx = staticCanvas.getGraphicsContext2D();
+        gfx.clearRect(0.0, 0.0, staticCanvas.getWidth(), staticCanvas.getHeight());
 
         double arenaPixelWidth = gridWidth * gridSquareSize;
         double arenaPixelHeight = gridHeight * gridSquareSize;
 
-
         // Draw the arena grid lines. This may help for debugging purposes, and just generally
         // to see what's going on.
         gfx.setStroke(Color.DARKGREY);
         gfx.strokeRect(0.0, 0.0, arenaPixelWidth - 1.0, arenaPixelHeight - 1.0); // Outer edge
 
-        for (int gridX = 1; gridX < gridWidth; gridX++) // Internal vertical grid lines
-        {
-            double x = (double) gridX * gridSquareSize;
-            gfx.strokeLine(x, 0.0, x, arenaPixelHeight);
+        if (gridSquareSize >= MIN_GRID_LINE_SPACING) {
+            for (int gridX = 1; gridX < gridWidth; gridX++) // Internal vertical grid lines
+            {
+                double x = (double) gridX * gridSquareSize;
+                gfx.strokeLine(x, 0.0, x, arenaPixelHeight);
+            }
+
+            for (int gridY = 1; gridY < gridHeight; gridY++) // Internal horizontal grid lines
+            {
+                double y = (double) gridY * gridSquareSize;
+                gfx.strokeLine(0.0, y, arenaPixelWidth, y);
+            }
         }
 
-        for (int gridY = 1; gridY < gridHeight; gridY++) // Internal horizontal grid lines
-        {
-            double y = (double) gridY * gridSquareSize;
-            gfx.strokeLine(0.0, y, arenaPixelWidth, y);
+        drawImage(gfx, citadel, gameState.getCitadelPositionX(), gameState.getCitadelPositionY());
+    }
+
+    /**
+     * Brings the dynamic layer up to date with the given snapshot. Robots and walls that appeared, moved, changed
+     * or disappeared since the previous frame mark their old and new regions as dirty; those regions are cleared
+     * and every sprite overlapping them is redrawn, clipped to them. When most of the layer is dirty anyway (or
+     * after a resize), the whole layer is redrawn.
+     * <p>
+     * Robots are compared slot by slot of the robot table, against what the previous frame drew in the same slot.
+     * Every slot is visited, rather than only those the game changed, because a moving robot is drawn somewhere
+     * new every frame without the snapshot changing, and a frame may come several snapshots after the last.
+     */
+    private void drawDynamicLayer(WorldSnapshot snapshot, boolean fullRepaint) {
+        GraphicsContext gfx = dynamicCanvas.getGraphicsContext2D();
+        RobotSprites previousRobots = drawnRobots;
+        RobotSprites currentRobots = spareRobots;
+        WallSprites previousWalls = drawnWalls;
+        WallSprites currentWalls = spareWalls;
+        collectRobots(snapshot.getRobots(), previousRobots, currentRobots);
+        collectWalls(snapshot.getWalls(), currentWalls);
+        Image robotSprite = spriteCache.getSprite(robotImage);
+
+        dirtyCount = 0;
+        boolean repaintAll = fullRepaint
+                || !collectDirtyRobots(robotSprite, previousRobots, currentRobots)
+                || !collectDirtyWalls(previousWalls, currentWalls)
+                || dirtyCount > snapshot.getRobots().size() + currentWalls.count;
+
+        if (repaintAll) {
+            gfx.clearRect(0.0, 0.0, dynamicCanvas.getWidth(), dynamicCanvas.getHeight());
+            drawRobots(gfx, robotSprite, currentRobots, false);
+            drawWalls(gfx, currentWalls, false);
+        } else if (dirtyCount > 0) {
+            gfx.save();
+            gfx.beginPath();
+            for (int region = 0; region < dirtyCount * 4; region += 4) {
+                double x = dirtyRegions[region];
+                double y = dirtyRegions[region + 1];
+                double width = dirtyRegions[region + 2];
+                double height = dirtyRegions[region + 3];
+                gfx.clearRect(x, y, width, height);
+                gfx.rect(x, y, width, height);
+            }
+            gfx.clip();
+            drawRobots(gfx, robotSprite, currentRobots, true);
+            drawWalls(gfx, currentWalls, true);
+            gfx.restore();
         }
 
-        // Invoke helper methods to draw things at the current location.
-        // ** You will need to adapt this to the requirements of your application. **
-        drawCitadel(gfx);
-        drawRobots(gfx);
-        drawWalls(gfx);
+        // What was drawn this frame becomes the previous frame's for the next one
+        drawnRobots = currentRobots;
+        spareRobots = previousRobots;
+        drawnWalls = currentWalls;
+        spareWalls = previousWalls;
     }
 
-    private void drawCitadel(GraphicsContext gfx) {
-        double citadelX = (gridWidth - 1) / 2.0;
-        double citadelY = (gridHeight - 1) / 2.0;
-        drawImage(gfx, citadel, citadelX, citadelY);
+    /**
+     * Works out where each robot in the snapshot is drawn at the current time. A robot part-way through a move is
+     * drawn between its two cells, interpolated from when the move started. A robot keeps the label it had in the
+     * previous frame, so labels are only looked up when a robot first appears in a slot.
+     */
+    private void collectRobots(RobotTable robots, RobotSprites previous, RobotSprites current) {
+        long nowNanos = System.nanoTime();
+        boolean moving = false;
+        int slotCount = robots.getSlotCount();
+        current.ensureCapacity(slotCount);
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (robots.isRobot(slot)) {
+                int robotId = robots.getId(slot);
+                current.ids[slot] = robotId;
+                current.xs[slot] = robots.getRenderX(slot, nowNanos);
+                current.ys[slot] = robots.getRenderY(slot, nowNanos);
+                boolean sameRobot = slot < previous.count && previous.ids[slot] == robotId;
+                current.labels[slot] = sameRobot ? previous.labels[slot] : spriteCache.getLabel(robotId);
+                moving |= robots.getMoveProgress(slot, nowNanos) < 1.0;
+            } else {
+                current.ids[slot] = 0;
+                current.labels[slot] = null;
+            }
+        }
+        current.count = slotCount;
+        robotsInMotion = moving;
     }
 
-    private void drawRobots(GraphicsContext gfx) {
-        try {
-            gameState.asyncGetRobots((robots) -> {
-                for (Robot robot : robots) {
-                    drawImage(gfx, robotImage, robot.getCurrX(), robot.getCurrY());
-                    drawLabel(gfx, Integer.toString(robot.getId()), robot.getCurrX(), robot.getCurrY());
-                }
-            });
-        } catch (InterruptedException e) {
-            System.err.println(e.getMessage());
+    /**
+     * Works out how each wall in the snapshot is drawn.
+     */
+    private void collectWalls(List<Wall> walls, WallSprites current) {
+        current.ensureCapacity(walls.size());
+        int index = 0;
+        for (Wall wall : walls) {
+            current.xs[index] = wall.getPositionX();
+            current.ys[index] = wall.getPositionY();
+            current.images[index] = spriteCache.getSprite(wall.isMaxHealth() ? wallMaxHealth : wallDamaged);
+            index++;
         }
+        current.count = index;
     }
 
-    private void drawWalls(GraphicsContext gfx) {
-        try {
-            gameState.asyncGetWalls((walls) -> {
-                for (Wall wall : walls) {
-                    if (wall.isMaxHealth()) {
-                        drawImage(gfx, wallMaxHealth, wall.getPositionX(), wall.getPositionY());
-                    } else {
-                        drawImage(gfx, wallDamaged, wall.getPositionX(), wall.getPositionY());
-                    }
-                }
-            });
-        } catch (InterruptedException e) {
-            System.err.println(e.getMessage());
+    /**
+     * Marks the old and new regions of every robot whose slot is drawn differently from the previous frame.
+     *
+     * @return False if there are more dirty regions than are worth repainting one by one.
+     */
+    private boolean collectDirtyRobots(Image robotSprite, RobotSprites previous, RobotSprites current) {
+        int slotCount = Math.max(previous.count, current.count);
+        for (int slot = 0; slot < slotCount; slot++) {
+            int previousId = slot < previous.count ? previous.ids[slot] : 0;
+            int currentId = slot < current.count ? current.ids[slot] : 0;
+            boolean unchanged = previousId == currentId
+                    && (currentId == 0 || previous.xs[slot] == current.xs[slot] && previous.ys[slot] == current.ys[slot]);
+            if (unchanged) {
+                continue;
+            }
+            if (previousId != 0 && !addDirtyRegion(robotSprite, previous.xs[slot], previous.ys[slot], previous.labels[slot])) {
+                return false;
+            }
+            if (currentId != 0 && !addDirtyRegion(robotSprite, current.xs[slot], current.ys[slot], current.labels[slot])) {
+                return false;
+            }
         }
+        return true;
+    }
+
+    /**
+     * Marks the region of every wall drawn in the previous frame but not in this one, or the other way round.
+     * There are at most GameState.MAX_WALLS walls, so each is simply looked for among the others.
+     *
+     * @return False if there are more dirty regions than are worth repainting one by one.
+     */
+    private boolean collectDirtyWalls(WallSprites previous, WallSprites current) {
+        for (int wall = 0; wall < previous.count; wall++) {
+            if (!current.contains(previous, wall)
+                    && !addDirtyRegion(previous.images[wall], previous.xs[wall], previous.ys[wall], null)) {
+                return false;
+            }
+        }
+        for (int wall = 0; wall < current.count; wall++) {
+            if (!previous.contains(current, wall)
+                    && !addDirtyRegion(current.images[wall], current.xs[wall], current.ys[wall], null)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds the region a sprite covers to the dirty regions.
+     *
+     * @return False if the dirty regions are already full.
+     */
+    private boolean addDirtyRegion(Image image, double gridX, double gridY, Image label) {
+        if (dirtyCount == MAX_DIRTY_REGIONS) {
+            return false;
+        }
+        measureSprite(image, gridX, gridY, label);
+        System.arraycopy(spriteBounds, 0, dirtyRegions, dirtyCount * 4, 4);
+        dirtyCount++;
+        return true;
+    }
+
+    /**
+     * Draws the robots, or only those overlapping a dirty region.
+     */
+    private void drawRobots(GraphicsContext gfx, Image robotSprite, RobotSprites robots, boolean dirtyOnly) {
+        for (int slot = 0; slot < robots.count; slot++) {
+            double x = robots.xs[slot];
+            double y = robots.ys[slot];
+            if (robots.ids[slot] != 0 && (!dirtyOnly || overlapsDirtyRegion(robotSprite, x, y, robots.labels[slot]))) {
+                drawSpriteImage(gfx, robotSprite, x, y);
+                drawLabel(gfx, robots.labels[slot], x, y);
+            }
+        }
+    }
+
+    /**
+     * Draws the walls, or only those overlapping a dirty region. Walls are drawn after the robots, so that they
+     * are drawn over them.
+     */
+    private void drawWalls(GraphicsContext gfx, WallSprites walls, boolean dirtyOnly) {
+        for (int wall = 0; wall < walls.count; wall++) {
+            if (!dirtyOnly || overlapsDirtyRegion(walls.images[wall], walls.xs[wall], walls.ys[wall], null)) {
+                drawSpriteImage(gfx, walls.images[wall], walls.xs[wall], walls.ys[wall]);
+            }
+        }
+    }
+
+    private boolean overlapsDirtyRegion(Image image, double gridX, double gridY, Image label) {
+        measureSprite(image, gridX, gridY, label);
+        for (int region = 0; region < dirtyCount * 4; region += 4) {
+            if (spriteBounds[0] < dirtyRegions[region] + dirtyRegions[region + 2]
+                    && dirtyRegions[region] < spriteBounds[0] + spriteBounds[2]
+                    && spriteBounds[1] < dirtyRegions[region + 1] + dirtyRegions[region + 3]
+                    && dirtyRegions[region + 1] < spriteBounds[1] + spriteBounds[3]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Works out the pixel region a sprite covers, into spriteBounds as {x, y, width, height}: its image plus, for
+     * a robot, the ID label drawn underneath it. The region is padded slightly so that anti-aliased edges are
+     * cleared too.
+     */
+    private void measureSprite(Image image, double gridX, double gridY, Image label) {
+        double centreX = (gridX + 0.5) * gridSquareSize;
+        double centreY = (gridY + 0.5) * gridSquareSize;
+        double left = centreX - image.getWidth() / 2.0;
+        double top = centreY - image.getHeight() / 2.0;
+        double right = centreX + image.getWidth() / 2.0;
+        double bottom = centreY + image.getHeight() / 2.0;
+        if (label != null) {
+            left = Math.min(left, centreX - label.getWidth() / 2.0);
+            right = Math.max(right, centreX + label.getWidth() / 2.0);
+            bottom = Math.max(bottom, (gridY + 1.0) * gridSquareSize + label.getHeight());
+        }
+        spriteBounds[0] = left - SPRITE_PADDING;
+        spriteBounds[1] = top - SPRITE_PADDING;
+        spriteBounds[2] = right - left + 2.0 * SPRITE_PADDING;
+        spriteBounds[3] = bottom - top + 2.0 * SPRITE_PADDING;
     }
 
     /**
@@ -193,52 +460,82 @@ public class JFXArena extends Pane {
      * Note that the grid location can be fractional, so that (for instance), you can draw an image
      * at location (3.5,4), and it will appear on the boundary between grid cells (3,4) and (4,4).
      * <p>
-     * You shouldn't need to modify this method.
+     * The image is looked up in the sprite cache, which has already scaled it to fit a grid cell
+     * (preserving its aspect ratio), so it is drawn centred on the location at its own size.
      */
     private void drawImage(GraphicsContext gfx, Image image, double gridX, double gridY) {
-        // Get the pixel coordinates representing the centre of where the image is to be drawn. 
+        Image sprite = spriteCache.getSprite(image);
+        drawSpriteImage(gfx, sprite, gridX, gridY);
+    }
+
+    /**
+     * Draws an image that is already scaled to fit a grid cell, centred on a grid location.
+     */
+    private void drawSpriteImage(GraphicsContext gfx, Image sprite, double gridX, double gridY) {
+        // Get the pixel coordinates representing the centre of where the image is to be drawn.
         double x = (gridX + 0.5) * gridSquareSize;
         double y = (gridY + 0.5) * gridSquareSize;
+        gfx.drawImage(sprite, x - sprite.getWidth() / 2.0, y - sprite.getHeight() / 2.0);
+    }
 
-        // We also need to know how "big" to make the image. The image file has a natural width 
-        // and height, but that's not necessarily the size we want to draw it on the screen. We 
-        // do, however, want to preserve its aspect ratio.
-        double fullSizePixelWidth = robotImage.getWidth();
-        double fullSizePixelHeight = robotImage.getHeight();
-
-        double displayedPixelWidth, displayedPixelHeight;
-        if (fullSizePixelWidth > fullSizePixelHeight) {
-            // Here, the image is wider than it is high, so we'll display it such that it's as 
-            // wide as a full grid cell, and the height will be set to preserve the aspect 
-            // ratio.
-            displayedPixelWidth = gridSquareSize;
-            displayedPixelHeight = gridSquareSize * fullSizePixelHeight / fullSizePixelWidth;
-        } else {
-            // Otherwise, it's the other way around -- full height, and width is set to 
-            // preserve the aspect ratio.
-            displayedPixelHeight = gridSquareSize;
-            displayedPixelWidth = gridSquareSize * fullSizePixelWidth / fullSizePixelHeight;
-        }
 
-        // Actually put the image on the screen.
-        gfx.drawImage(image,
-                x - displayedPixelWidth / 2.0,  // Top-left pixel coordinates.
-                y - displayedPixelHeight / 2.0,
-                displayedPixelWidth,              // Size of displayed image.
-                displayedPixelHeight);
+    /**
+     * Displays a rasterised label (from the sprite cache) centred underneath a specific grid
+     * location. *Only* call this from within layoutChildren().
+     */
+    private void drawLabel(GraphicsContext gfx, Image label, double gridX, double gridY) {
+        gfx.drawImage(label, (gridX + 0.5) * gridSquareSize - label.getWidth() / 2.0, (gridY + 1.0) * gridSquareSize);
     }
 
+    /**
+     * The robots drawn in one frame, by slot of the robot table: each slot's robot ID (0 for none), where the robot
+     * is drawn and its label. The arrays only grow, with the robot table.
+     */
+    private static final class RobotSprites {
+        private int count;
+        private int[] ids = new int[0];
+        private double[] xs = new double[0];
+        private double[] ys = new double[0];
+        private Image[] labels = new Image[0];
+
+        public void ensureCapacity(int slotCount) {
+            if (slotCount > ids.length) {
+                int capacity = Math.max(slotCount, ids.length * 2);
+                ids = Arrays.copyOf(ids, capacity);
+                xs = Arrays.copyOf(xs, capacity);
+                ys = Arrays.copyOf(ys, capacity);
+                labels = Arrays.copyOf(labels, capacity);
+            }
+        }
+    }
 
     /**
-     * Displays a string of text underneath a specific grid location. *Only* call this from within
-     * layoutChildren().
-     * <p>
-     * You shouldn't need to modify this method.
+     * The walls drawn in one frame: where each is drawn and its image, which shows whether it is damaged.
      */
-    private void drawLabel(GraphicsContext gfx, String label, double gridX, double gridY) {
-        gfx.setTextAlign(TextAlignment.CENTER);
-        gfx.setTextBaseline(VPos.TOP);
-        gfx.setStroke(Color.BLUE);
-        gfx.strokeText(label, (gridX + 0.5) * gridSquareSize, (gridY + 1.0) * gridSquareSize);
+    private static final class WallSprites {
+        private int count;
+        private double[] xs = new double[0];
+        private double[] ys = new double[0];
+        private Image[] images = new Image[0];
+
+        public void ensureCapacity(int wallCount) {
+            if (wallCount > xs.length) {
+                xs = Arrays.copyOf(xs, wallCount);
+                ys = Arrays.copyOf(ys, wallCount);
+                images = Arrays.copyOf(images, wallCount);
+            }
+        }
+
+        /**
+         * Checks whether one of these walls is drawn exactly like the given wall of another frame.
+         */
+        public boolean contains(WallSprites other, int wall) {
+            for (int index = 0; index < count; index++) {
+                if (xs[index] == other.xs[wall] && ys[index] == other.ys[wall] && images[index].equals(other.images[wall])) {
+                    return true;
+                }
+            }
+            return false;
+        }
     }
 }
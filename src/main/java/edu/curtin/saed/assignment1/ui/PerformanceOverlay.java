@@ -0,0 +1,250 @@
+package edu.curtin.saed.assignment1.ui;
+
+import edu.curtin.saed.assignment1.metrics.LatencyHistogram;
+import edu.curtin.saed.assignment1.metrics.MetricsRegistry;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A heads-up display of how the arena is rendering, drawn on its own canvas over the arena. It shows the actual
+ * frame rate against the target, how long the arena's layout pass and its read of the world snapshot took, how
+ * stale the snapshot was, how many robots and walls were drawn, the garbage collector's activity, and a rolling
+ * graph of the last HISTORY_FRAMES frame times. Given a metrics registry, it also shows the game thread's queue
+ * depth and latencies, so stutter can be traced to rendering, game-thread contention or GC.
+ * <p>
+ * The arena records every frame; the overlay is only drawn while it is visible. It must only be used on the
+ * JavaFX application thread.
+ */
+public class PerformanceOverlay {
+
+    private static final int HISTORY_FRAMES = 240;
+    private static final double PANEL_WIDTH = 340.0;
+    private static final double GRAPH_HEIGHT = 60.0;
+    private static final double GRAPH_MAX_MILLIS = 50.0;
+    private static final double MARGIN = 8.0;
+    private static final double LINE_HEIGHT = 14.0;
+    private static final long TEXT_REFRESH_NANOS = 250_000_000L;
+    private static final Color BACKGROUND = Color.rgb(0, 0, 0, 0.7);
+
+    private final Canvas canvas;
+    private final Font font = Font.font("Monospaced", 11.0);
+    private final List<GarbageCollectorMXBean> collectors;
+    private int targetFps = 60;
+    private MetricsRegistry metrics;
+
+    // Rolling history of frame intervals and layout times, in nanoseconds
+    private final long[] frameIntervals = new long[HISTORY_FRAMES];
+    private final long[] layoutTimes = new long[HISTORY_FRAMES];
+    private int nextFrame;
+    private int recordedFrames;
+    private long lastFrameStartNanos;
+
+    // Totals over the current text refresh window
+    private long windowStartNanos;
+    private int windowFrames;
+    private int windowSkippedFrames;
+    private long windowLayoutNanos;
+    private long windowMaxLayoutNanos;
+    private long windowSnapshotNanos;
+    private long windowMaxSnapshotAgeNanos;
+    private long lastGcCount;
+    private long lastGcMillis;
+
+    // The text shown, refreshed every TEXT_REFRESH_NANOS so it is readable
+    private final List<String> lines = new ArrayList<>();
+    private int robotCount;
+    private int wallCount;
+
+    public PerformanceOverlay() {
+        this.canvas = new Canvas();
+        canvas.setMouseTransparent(true);
+        canvas.setVisible(false);
+        this.collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        for (GarbageCollectorMXBean collector : collectors) {
+            lastGcCount += Math.max(0, collector.getCollectionCount());
+            lastGcMillis += Math.max(0, collector.getCollectionTime());
+        }
+        lines.add("Collecting frame times...");
+    }
+
+    public Canvas getCanvas() {
+        return canvas;
+    }
+
+    public boolean isVisible() {
+        return canvas.isVisible();
+    }
+
+    /**
+     * Shows the overlay if it is hidden, or hides it if it is shown.
+     */
+    public void toggle() {
+        canvas.setVisible(!canvas.isVisible());
+        if (!canvas.isVisible()) {
+            canvas.getGraphicsContext2D().clearRect(0.0, 0.0, canvas.getWidth(), canvas.getHeight());
+        }
+    }
+
+    /**
+     * Sets the frame rate the game window aims for, which the actual frame rate is shown against.
+     */
+    public void setTargetFps(int targetFps) {
+        this.targetFps = targetFps;
+    }
+
+    /**
+     * Sets the registry to read the game thread's metrics from, or null to leave them out.
+     */
+    public void setMetrics(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Records one pass of the arena's layout.
+     *
+     * @param startNanos         When the pass started.
+     * @param layoutNanos        How long the pass took.
+     * @param snapshotNanos      How long reading the world snapshot took.
+     * @param snapshotAgeNanos   How long before the pass the snapshot was published.
+     * @param skipped            True if nothing had changed, so nothing was drawn.
+     * @param robots             The number of robots in the snapshot.
+     * @param walls              The number of walls in the snapshot.
+     */
+    public void recordFrame(long startNanos, long layoutNanos, long snapshotNanos, long snapshotAgeNanos,
+                            boolean skipped, int robots, int walls) {
+        if (lastFrameStartNanos == 0) {
+            windowStartNanos = startNanos;
+        } else {
+            frameIntervals[nextFrame] = startNanos - lastFrameStartNanos;
+            layoutTimes[nextFrame] = layoutNanos;
+            nextFrame = (nextFrame + 1) % HISTORY_FRAMES;
+            recordedFrames = Math.min(recordedFrames + 1, HISTORY_FRAMES);
+        }
+        lastFrameStartNanos = startNanos;
+        robotCount = robots;
+        wallCount = walls;
+
+        windowFrames++;
+        if (skipped) {
+            windowSkippedFrames++;
+        }
+        windowLayoutNanos += layoutNanos;
+        windowMaxLayoutNanos = Math.max(windowMaxLayoutNanos, layoutNanos);
+        windowSnapshotNanos += snapshotNanos;
+        windowMaxSnapshotAgeNanos = Math.max(windowMaxSnapshotAgeNanos, snapshotAgeNanos);
+        if (startNanos - windowStartNanos >= TEXT_REFRESH_NANOS) {
+            refreshText(startNanos);
+        }
+    }
+
+    /**
+     * Draws the overlay, if it is visible, sized to the given arena size.
+     */
+    public void draw(double width, double height) {
+        if (!canvas.isVisible()) {
+            return;
+        }
+        if (canvas.getWidth() != width || canvas.getHeight() != height) {
+            canvas.setWidth(width);
+            canvas.setHeight(height);
+        }
+        GraphicsContext gfx = canvas.getGraphicsContext2D();
+        gfx.clearRect(0.0, 0.0, width, height);
+
+        double textHeight = lines.size() * LINE_HEIGHT;
+        gfx.setFill(BACKGROUND);
+        gfx.fillRect(0.0, 0.0, PANEL_WIDTH, textHeight + GRAPH_HEIGHT + 3.0 * MARGIN);
+
+        gfx.setFont(font);
+        gfx.setTextBaseline(VPos.TOP);
+        gfx.setFill(Color.WHITE);
+        double y = MARGIN;
+        for (String line : lines) {
+            gfx.fillText(line, MARGIN, y);
+            y += LINE_HEIGHT;
+        }
+        drawGraph(gfx, MARGIN, y + MARGIN);
+    }
+
+    /**
+     * Draws the frame time graph, oldest frame on the left: each frame is a bar whose height is the time since
+     * the previous frame, coloured by how far over the target it was, with the layout time shaded at its foot.
+     */
+    private void drawGraph(GraphicsContext gfx, double left, double top) {
+        double pixelsPerNano = GRAPH_HEIGHT / (GRAPH_MAX_MILLIS * 1_000_000.0);
+        long targetNanos = 1_000_000_000L / targetFps;
+        double bottom = top + GRAPH_HEIGHT;
+        int first = (nextFrame - recordedFrames + HISTORY_FRAMES) % HISTORY_FRAMES;
+        for (int i = 0; i < recordedFrames; i++) {
+            int frame = (first + i) % HISTORY_FRAMES;
+            double x = left + HISTORY_FRAMES - recordedFrames + i;
+            long interval = frameIntervals[frame];
+            if (interval <= targetNanos * 3 / 2) {
+                gfx.setStroke(Color.LIMEGREEN);
+            } else if (interval <= targetNanos * 3) {
+                gfx.setStroke(Color.ORANGE);
+            } else {
+                gfx.setStroke(Color.RED);
+            }
+            gfx.strokeLine(x + 0.5, bottom, x + 0.5, bottom - Math.min(GRAPH_HEIGHT, interval * pixelsPerNano));
+            gfx.setStroke(Color.DODGERBLUE);
+            gfx.strokeLine(x + 0.5, bottom, x + 0.5, bottom - Math.min(GRAPH_HEIGHT, layoutTimes[frame] * pixelsPerNano));
+        }
+        // The target frame time, for reference
+        double targetY = bottom - Math.min(GRAPH_HEIGHT, targetNanos * pixelsPerNano);
+        gfx.setStroke(Color.WHITE);
+        gfx.strokeLine(left, targetY + 0.5, left + HISTORY_FRAMES, targetY + 0.5);
+    }
+
+    /**
+     * Rebuilds the text from the frames recorded since the last refresh, and starts a new window.
+     */
+    private void refreshText(long nowNanos) {
+        double windowSeconds = (nowNanos - windowStartNanos) / 1e9;
+        long gcCount = 0;
+        long gcMillis = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            gcCount += Math.max(0, collector.getCollectionCount());
+            gcMillis += Math.max(0, collector.getCollectionTime());
+        }
+
+        lines.clear();
+        lines.add(String.format("FPS %5.1f / %d target (%d of %d frames skipped)", windowFrames / windowSeconds,
+                targetFps, windowSkippedFrames, windowFrames));
+        lines.add(String.format("Layout   avg %6.2f ms  max %6.2f ms", windowLayoutNanos / 1e6 / windowFrames,
+                windowMaxLayoutNanos / 1e6));
+        lines.add(String.format("Snapshot read %5.2f us  max age %5.1f ms", windowSnapshotNanos / 1e3 / windowFrames,
+                windowMaxSnapshotAgeNanos / 1e6));
+        lines.add(String.format("Robots %d  walls %d", robotCount, wallCount));
+        lines.add(String.format("GC %d collections, %d ms (%.1f/s)", gcCount - lastGcCount, gcMillis - lastGcMillis,
+                (gcCount - lastGcCount) / windowSeconds));
+        if (metrics != null) {
+            LatencyHistogram commands = metrics.getHistogram("gameState.command.latency");
+            LatencyHistogram putWait = metrics.getHistogram("gameState.queue.putWait");
+            lines.add(String.format("Game queue %d  put wait p99 %.1f us",
+                    metrics.readGauge("gameState.queue.depth"),
+                    putWait == null ? 0.0 : putWait.getPercentileNanos(99) / 1e3));
+            lines.add(String.format("Command p99 %.1f us  max %.1f us",
+                    commands == null ? 0.0 : commands.getPercentileNanos(99) / 1e3,
+                    commands == null ? 0.0 : commands.getMaxNanos() / 1e3));
+        }
+
+        lastGcCount = gcCount;
+        lastGcMillis = gcMillis;
+        windowStartNanos = nowNanos;
+        windowFrames = 0;
+        windowSkippedFrames = 0;
+        windowLayoutNanos = 0;
+        windowMaxLayoutNanos = 0;
+        windowSnapshotNanos = 0;
+        windowMaxSnapshotAgeNanos = 0;
+    }
+}
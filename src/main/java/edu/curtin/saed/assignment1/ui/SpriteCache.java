@@ -0,0 +1,116 @@
+package edu.curtin.saed.assignment1.ui;
+
+import javafx.geometry.VPos;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextAlignment;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Images prepared ahead of time for drawing the arena, so that drawing a robot, wall or label is a single
+ * unscaled blit instead of a scaled draw or a text render.
+ * <p>
+ * Sprites are copies of the arena's images scaled to fit one grid square (preserving each image's aspect ratio),
+ * and are thrown away whenever the grid square size changes. Labels are robot IDs rasterised once each; they do
+ * not depend on the grid square size. They are kept in a direct-mapped table indexed by the low bits of the ID,
+ * so looking one up is an array read with no key to build, and a label is only replaced when a robot whose ID
+ * shares its entry needs one. Robot IDs are handed out in sequence, so that robot is MAX_CACHED_LABELS spawns
+ * newer.
+ * <p>
+ * Images are rasterised by taking snapshots of an off-screen canvas, so the cache must only be used on the
+ * JavaFX application thread.
+ */
+public class SpriteCache {
+
+    // A power of two, so that a robot's entry is the low bits of its ID
+    private static final int MAX_CACHED_LABELS = 4096;
+    private static final Color LABEL_COLOUR = Color.BLUE;
+
+    private final Map<Image, Image> sprites;
+    private final int[] labelIds;
+    private final Image[] labels;
+    private final SnapshotParameters snapshotParameters;
+    private double gridSquareSize;
+
+    public SpriteCache() {
+        this.sprites = new HashMap<>();
+        this.labelIds = new int[MAX_CACHED_LABELS];
+        this.labels = new Image[MAX_CACHED_LABELS];
+        this.snapshotParameters = new SnapshotParameters();
+        snapshotParameters.setFill(Color.TRANSPARENT);
+    }
+
+    /**
+     * Sets the size that sprites are scaled to, discarding every sprite scaled to the previous size.
+     *
+     * @param newGridSquareSize The size of a grid square, in pixels.
+     */
+    public void setGridSquareSize(double newGridSquareSize) {
+        if (newGridSquareSize != gridSquareSize) {
+            gridSquareSize = newGridSquareSize;
+            sprites.clear();
+        }
+    }
+
+    /**
+     * Gets a copy of the given image scaled to fit one grid square, creating it the first time it is needed.
+     */
+    public Image getSprite(Image image) {
+        return sprites.computeIfAbsent(image, this::scale);
+    }
+
+    /**
+     * Gets a robot's ID rasterised as its label, creating it the first time it is needed.
+     */
+    public Image getLabel(int robotId) {
+        int entry = robotId & (MAX_CACHED_LABELS - 1);
+        if (labels[entry] == null || labelIds[entry] != robotId) {
+            labels[entry] = rasterise(Integer.toString(robotId));
+            labelIds[entry] = robotId;
+        }
+        return labels[entry];
+    }
+
+    private Image scale(Image image) {
+        // The image is as wide or as high as a grid square, whichever keeps its aspect ratio within the square
+        double fullSizePixelWidth = image.getWidth();
+        double fullSizePixelHeight = image.getHeight();
+        double displayedPixelWidth;
+        double displayedPixelHeight;
+        if (fullSizePixelWidth > fullSizePixelHeight) {
+            displayedPixelWidth = gridSquareSize;
+            displayedPixelHeight = gridSquareSize * fullSizePixelHeight / fullSizePixelWidth;
+        } else {
+            displayedPixelHeight = gridSquareSize;
+            displayedPixelWidth = gridSquareSize * fullSizePixelWidth / fullSizePixelHeight;
+        }
+
+        Canvas canvas = new Canvas(Math.max(1.0, Math.round(displayedPixelWidth)),
+                Math.max(1.0, Math.round(displayedPixelHeight)));
+        GraphicsContext gfx = canvas.getGraphicsContext2D();
+        gfx.setImageSmoothing(true);
+        gfx.drawImage(image, 0.0, 0.0, canvas.getWidth(), canvas.getHeight());
+        return canvas.snapshot(snapshotParameters, null);
+    }
+
+    private Image rasterise(String text) {
+        // Measured with the same (default) font that the canvas draws with, plus a pixel either side for the stroke
+        Text measure = new Text(text);
+        double width = Math.ceil(measure.getLayoutBounds().getWidth()) + 2.0;
+        double height = Math.ceil(measure.getLayoutBounds().getHeight()) + 2.0;
+
+        Canvas canvas = new Canvas(width, height);
+        GraphicsContext gfx = canvas.getGraphicsContext2D();
+        gfx.setTextAlign(TextAlignment.CENTER);
+        gfx.setTextBaseline(VPos.TOP);
+        gfx.setStroke(LABEL_COLOUR);
+        gfx.strokeText(text, width / 2.0, 1.0);
+        return canvas.snapshot(snapshotParameters, null);
+    }
+}
@@ -1,23 +1,48 @@
 package edu.curtin.saed.assignment1.wall;
 
 import edu.curtin.saed.assignment1.gamelogic.GameState;
-import edu.curtin.saed.assignment1.worldobjects.Robot;
+import edu.curtin.saed.assignment1.journal.InputRecorder;
+import edu.curtin.saed.assignment1.metrics.MetricsRegistry;
 import edu.curtin.saed.assignment1.worldobjects.Wall;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 
 public class WallBuilder {
 
+    public static final int QUEUE_CAPACITY = 10;
+    public static final int BUILD_DELAY_MILLIS = 2000;
+
     private final BlockingQueue<Wall> wallQueue;
     private Thread thread;
     private final GameState gameState;
+    private volatile InputRecorder inputRecorder = InputRecorder.NONE;
 
     private final Object mutexWallQueueCount = new Object();
 
     public WallBuilder(GameState gameState) {
         this.gameState = gameState;
-        this.wallQueue = new ArrayBlockingQueue<>(10);
+        this.wallQueue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    }
+
+    /**
+     * Sets where the player's wall requests are recorded, such as a game journal.
+     */
+    public void setInputRecorder(InputRecorder inputRecorder) {
+        this.inputRecorder = inputRecorder;
+    }
+
+    /**
+     * Registers the wall builder's metrics under 'wallBuilder.': the number of walls waiting in its queue, and the
+     * queue's capacity.
+     *
+     * @param registry The registry to add the metrics to.
+     */
+    public void registerMetrics(MetricsRegistry registry) {
+        registry.gauge("wallBuilder.queue.depth", this::getQueuedWallCount);
+        registry.gauge("wallBuilder.queue.capacity", () -> QUEUE_CAPACITY);
     }
 
     /**
@@ -30,7 +55,7 @@ public class WallBuilder {
                 try {
                     Wall wall = wallQueue.take();
                     buildWall(wall);
-                    Thread.sleep(2000);
+                    Thread.sleep(BUILD_DELAY_MILLIS);
                 } catch (InterruptedException e) {
                     System.out.println(Thread.currentThread().getName() + "" + ": SHUTDOWN");
                     Thread.currentThread().interrupt();
@@ -59,67 +84,61 @@ public class WallBuilder {
 
     /**
      * Attempts to build a wall at the specified grid coordinates (x, y) if the wall queue has remaining capacity and the
-     * maximum number of walls (10) on the grid has not been reached. It checks for existing walls at the specified
-     * coordinates to avoid duplicate construction.
+     * maximum number of walls (10) on the grid has not been reached. It looks the coordinates up in the game state's
+     * occupancy grid to avoid duplicate construction. Neither the caller (usually the JavaFX application thread)
+     * nor the game thread ever waits: the look-up goes through the game state's non-blocking lane, and a wall that
+     * no longer fits in the queue by the time the answer arrives is ignored.
      *
      * @param x The X-coordinate where the wall should be built.
      * @param y The Y-coordinate where the wall should be built.
      */
     public void buildWall(double x, double y) {
-        try {
-            if (wallQueue.remainingCapacity() != 0 && gameState.getTotalWallsBuilt() != 10) {
-                gameState.asyncGetWalls(walls -> {
-                    boolean build = true;
-                    for (Wall wall : walls) {
-                        if (wall.getPositionX() == x && wall.getPositionY() == y) {
-                            build = false;
-                            break;
-                        }
-                    }
-                    if (build) {
-                        Wall wall = new Wall(x, y);
-                        try {
-                            wallQueue.put(wall);
-                        } catch (InterruptedException e) {
-                            System.err.println(e.getMessage());
-                        }
-                    }
-                });
-            }
-        } catch (InterruptedException e) {
-            System.err.println(e.getMessage());
+        inputRecorder.wallRequested((int) x, (int) y);
+        if (wallQueue.remainingCapacity() != 0 && gameState.getTotalWallsBuilt() != GameState.MAX_WALLS) {
+            gameState.checkWall((int) x, (int) y).thenAccept(hasWall -> {
+                if (!hasWall) {
+                    // Ignored if the queue filled up meanwhile, like a request made while it was full
+                    wallQueue.offer(new Wall(x, y));
+                }
+            });
         }
     }
 
     /**
-     * Attempts to build a wall at the specified grid coordinates represented by the provided Wall object. It checks for
-     * the presence of robots at the same coordinates to prevent wall placement where a robot is present.
+     * Attempts to build a wall at the specified grid coordinates represented by the provided Wall object. The game
+     * state rejects the wall if a robot or another wall already occupies its cell.
      *
      * @param wall The Wall object representing the location where the wall should be built.
      */
     private void buildWall(Wall wall) {
         try {
-            gameState.asyncGetRobots((robots -> {
-                boolean placeWall = true;
-                for (Robot robot : robots) {
-                    if (Math.round(robot.getCurrX()) == wall.getPositionX() && Math.round(robot.getCurrY()) == wall.getPositionY()) {
-                        placeWall = false;
-                        break;
-                    }
-                }
-                if (placeWall) {
-                    try {
-                        gameState.addWalls(wall);
-                    } catch (InterruptedException e) {
-                        System.err.println(e.getMessage());
-                    }
-                }
-            }));
+            gameState.addWalls(wall);
         } catch (InterruptedException e) {
             System.err.println(e.getMessage());
         }
     }
 
+    /**
+     * Gets the walls waiting to be built, in the order they will be built.
+     */
+    public List<Wall> getQueuedWalls() {
+        return new ArrayList<>(wallQueue);
+    }
+
+    /**
+     * Puts walls from a saved game back in the queue, ahead of any new requests. Walls that no longer fit in the
+     * queue are dropped.
+     *
+     * @param walls The walls that were waiting to be built when the game was saved.
+     */
+    public void restoreQueue(List<Wall> walls) {
+        for (Wall wall : walls) {
+            if (!wallQueue.offer(wall)) {
+                System.err.println("Wall queue full, dropping saved wall at (" + wall.getPositionX() + "," + wall.getPositionY() + ")");
+            }
+        }
+    }
+
     /**
      * Retrieves the current count of walls waiting to be built in the wall queue.
      *
@@ -1,5 +1,10 @@
 package edu.curtin.saed.assignment1.worldobjects;
 
+/**
+ * A robot's details as they pass in and out of the game state: a robot to spawn, a robot in a save, or a copy of a
+ * robot handed to a callback. The game state keeps its robots in a RobotTable and copies a Robot's details into it,
+ * so it never changes a Robot it was given and a Robot it hands out does not change as the game goes on.
+ */
 public class Robot {
     private final int id;
     private final int delay;
@@ -15,14 +20,41 @@ public class Robot {
 
     private double nextY;
 
+    private long moveDurationNanos;
+
+    // Written last when a move starts, so a reader that reads it first sees the rest of the move
+    private volatile long moveStartNanos;
+
     public Robot(int id, int delay, double currX, double currY) {
         this.id = id;
         this.delay = delay;
         this.currX = currX;
         this.currY = currY;
+        this.prevX = currX;
+        this.prevY = currY;
+        this.nextX = currX;
+        this.nextY = currY;
+    }
+
+
+    /**
+     * Creates a copy of a robot, including its current move.
+     *
+     * @param other The robot to copy.
+     */
+    public Robot(Robot other) {
+        this.id = other.id;
+        this.delay = other.delay;
+        this.currX = other.currX;
+        this.currY = other.currY;
+        this.prevX = other.prevX;
+        this.prevY = other.prevY;
+        this.nextX = other.nextX;
+        this.nextY = other.nextY;
+        this.moveDurationNanos = other.moveDurationNanos;
+        this.moveStartNanos = other.moveStartNanos;
     }
 
-
     public double getCurrX() {
         return currX;
     }
@@ -71,6 +103,54 @@ public class Robot {
         this.nextY = nextY;
     }
 
+    /**
+     * Starts a move from the robot's current cell to the given cell. The current cell becomes the previous cell;
+     * the current cell itself only changes once the move is completed.
+     *
+     * @param nextX         The X-coordinate of the cell being moved into.
+     * @param nextY         The Y-coordinate of the cell being moved into.
+     * @param startNanos    When the move started, as a System.nanoTime() value.
+     * @param durationNanos How long the move takes.
+     */
+    public void startMove(double nextX, double nextY, long startNanos, long durationNanos) {
+        this.prevX = currX;
+        this.prevY = currY;
+        this.nextX = nextX;
+        this.nextY = nextY;
+        this.moveDurationNanos = durationNanos;
+        this.moveStartNanos = startNanos;
+    }
+
+    /**
+     * Gets how far along its current move the robot is at the given time.
+     *
+     * @param nowNanos The time, as a System.nanoTime() value.
+     * @return A fraction from 0 (still at the previous cell) to 1 (at the next cell).
+     */
+    public double getMoveProgress(long nowNanos) {
+        long elapsedNanos = nowNanos - moveStartNanos;
+        if (elapsedNanos >= moveDurationNanos) {
+            return 1.0;
+        }
+        return elapsedNanos <= 0 ? 0.0 : (double) elapsedNanos / moveDurationNanos;
+    }
+
+    /**
+     * Gets the X-coordinate at which to draw the robot at the given time, interpolated along its current move.
+     */
+    public double getRenderX(long nowNanos) {
+        double progress = getMoveProgress(nowNanos);
+        return prevX + (nextX - prevX) * progress;
+    }
+
+    /**
+     * Gets the Y-coordinate at which to draw the robot at the given time, interpolated along its current move.
+     */
+    public double getRenderY(long nowNanos) {
+        double progress = getMoveProgress(nowNanos);
+        return prevY + (nextY - prevY) * progress;
+    }
+
     public int getId() {
         return id;
     }
@@ -90,4 +170,9 @@ public class Robot {
         Robot other = (Robot) obj;
         return id == other.id;
     }
+
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(id);
+    }
 }
@@ -15,6 +15,17 @@ public class Wall {
         this.healthPoints = maxHealthPoints;
     }
 
+    /**
+     * Creates a copy of a wall, including its health.
+     *
+     * @param other The wall to copy.
+     */
+    public Wall(Wall other) {
+        this.posX = other.posX;
+        this.posY = other.posY;
+        this.healthPoints = other.healthPoints;
+    }
+
     public double getPositionX() {
         return posX;
     }
@@ -23,6 +34,10 @@ public class Wall {
         return posY;
     }
 
+    public int getHealthPoints() {
+        return healthPoints;
+    }
+
     public void setDamaged() {
         this.healthPoints = damagedHealthPoints;
     }